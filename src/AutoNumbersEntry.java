@@ -3,10 +3,7 @@
  */
 
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * AutoNumbersEntry class, derived from NumbersEntry.
@@ -14,8 +11,23 @@ import java.util.Random;
  */
 public class AutoNumbersEntry extends NumbersEntry implements Serializable {
 	
-	private final int NUMBER_COUNT = 7;
-	private final int MAX_NUMBER = 35;
+	private static final long serialVersionUID = 5017581892050339378L;
+	
+	//Linear congruential generator of java.util.Random, as given in its documentation.
+	private static final long RANDOM_MULTIPLIER = 0x5DEECE66DL;
+	private static final long RANDOM_ADDEND = 0xBL;
+	private static final long RANDOM_MASK = (1L << 48) - 1;
+	
+	//Scratch list of numbers 1 to 35 for shuffling, one per thread and reused for every entry.
+	private static final ThreadLocal<int[]> SHUFFLE_POOL = new ThreadLocal<int[]>() {
+		@Override
+		protected int[] initialValue() {
+			return new int[MAX_NUMBER];
+		}
+	};
+	
+	private final static int NUMBER_COUNT = 7;
+	private final static int MAX_NUMBER = 35;
 	
 	/**
 	* Constructor of the AutoNumbersEntry class.
@@ -44,17 +56,58 @@ public class AutoNumbersEntry extends NumbersEntry implements Serializable {
 	*/
 	public int[] createNumbers (int seed) {
 		
-	    ArrayList<Integer> validList = new ArrayList<Integer>();
-	    int[] tempNumbers = new int[NUMBER_COUNT];
-	    for (int i = 1; i <= MAX_NUMBER; i++) {
-	            validList.add(i);
-	    }
-	    Collections.shuffle(validList, new Random(seed));
-	    for (int i = 0; i < NUMBER_COUNT; i++) {
-	            tempNumbers[i] = validList.get(i);
-	    }
-	    Arrays.sort(tempNumbers);
-	    return tempNumbers;
+		long mask = createNumberMask(seed);
+		int[] tempNumbers = new int[NUMBER_COUNT];
+		for (int i = 0; i < NUMBER_COUNT; i++) {
+			tempNumbers[i] = Long.numberOfTrailingZeros(mask);
+			mask = mask & (mask - 1);
+		}
+		
+		return tempNumbers;
+	}
+	
+	/*
+	 *  Helper method to create a number set based on a given seed, as a bitmask.
+	 *  Gives the same numbers as shuffling the list 1 to max with Collections.shuffle and
+	 *  a new Random(seed), then taking the first numbers, without creating either object.
+	 */
+	private static long createNumberMask(int seed) {
+		
+		int[] pool = SHUFFLE_POOL.get();
+		for (int i = 0; i < MAX_NUMBER; i++) {
+			pool[i] = i + 1;
+		}
+		
+		//Same swaps as Collections.shuffle, from the end of the list down, drawing
+		//each position as Random.nextInt(i) would from the same seed.
+		long rnd = (seed ^ RANDOM_MULTIPLIER) & RANDOM_MASK;
+		for (int i = MAX_NUMBER; i > 1; i--) {
+			
+			int r;
+			if ((i & -i) == i) {
+				rnd = (rnd * RANDOM_MULTIPLIER + RANDOM_ADDEND) & RANDOM_MASK;
+				r = (int) ((i * (long) (int) (rnd >>> 17)) >> 31);
+			} else {
+				int bits;
+				do {
+					rnd = (rnd * RANDOM_MULTIPLIER + RANDOM_ADDEND) & RANDOM_MASK;
+					bits = (int) (rnd >>> 17);
+					r = bits % i;
+				} while (bits - r + (i - 1) < 0);
+			}
+			
+			int swap = pool[i - 1];
+			pool[i - 1] = pool[r];
+			pool[r] = swap;
+		}
+		
+		//Set the first numbers as bits, which also sorts them.
+		long mask = 0;
+		for (int i = 0; i < NUMBER_COUNT; i++) {
+			mask = mask | (1L << pool[i]);
+		}
+		
+		return mask;
 	}
 	
 	/**
@@ -62,26 +115,26 @@ public class AutoNumbersEntry extends NumbersEntry implements Serializable {
 	* @param seed Integer seed for generating random numbers.
 	*/
 	public void newNumberSet (int seed) {
-		this.setNumbers(createNumbers(seed));
+		this.setNumberMask(createNumberMask(seed));
 	}
 	
 	/**
 	* Assigns new number set to the entry based on random number.
 	*/
 	public void newNumberSet () {
-		Random rand = new Random();
-		this.setNumbers(createNumbers(rand.nextInt(1000000)));
+		this.setNumberMask(createNumberMask(ThreadLocalRandom.current().nextInt(1000000)));
 	}
 	
 	/**
-    * Print number array to the console.
+    * Append number array to a report, marked as automatically generated.
+    * @param report ReportWriter to append to.
     */
 	@Override
-	public void printNumbers() {
+	public void appendNumbers(ReportWriter report) {
 		for (int j = 0; j < NUMBER_COUNT; j++) {
-			System.out.printf("%3s", this.getNumber(j));	
+			report.appendRight(this.getNumber(j), 3);	
 		}
-		System.out.print(" [Auto]");
+		report.append(" [Auto]");
 	}
 	
 }
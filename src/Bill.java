@@ -2,6 +2,8 @@
  * Author: Damian Curran
  */
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 
 /**
@@ -10,27 +12,86 @@ import java.io.Serializable;
  */
 public class Bill implements Serializable {
 	
+	private static final long serialVersionUID = -5420190493432878785L;
+
 	private String billId;
 	private String memberId;
-	private float amount;
+	private long cents; //Amount in fixed-point cents.
 	private boolean used;
+	private transient int noEntries; //Entries the amount can purchase, set once from cents.
+	
+	//Bill files were written from a float amount with "%.1f", and entries counted from the
+	//float's whole dollars. Counts and formatting go through the float an amount in cents
+	//reads as, so they stay exactly as the files were.
 	private final static int COST_PER_ENTRY = 50;
+	private final static int CENTS_PER_ENTRY = COST_PER_ENTRY * 100;
 	
 	/**
     * Constructor of the Bill class.
     * @param bid The bill id, String.
     * @param mid The member id, String.
-	* @param amount The bill amount, float.
+	* @param amount The bill amount, float. Stored in cents, see toCents.
     * @param used Boolean indicating if bill previously used to purchase entries.
     */
 	public Bill(String bid, String mid, float amount, boolean used) {
 		this.billId = bid;
 		this.memberId = mid;
-		this.amount = amount;
+		this.cents = toCents(amount);
 		this.used = used;
+		this.noEntries = countEntries(this.cents);
 
 	}
 	
+	/**
+	* Static method to create a bill with an amount given in cents.
+	* @param bid The bill id, String.
+	* @param mid The member id, String.
+	* @param cents The bill amount in cents, long.
+	* @param used Boolean indicating if bill previously used to purchase entries.
+	* @return Returns new Bill object.
+	*/
+	public static Bill withCents(String bid, String mid, long cents, boolean used) {
+		Bill b = new Bill(bid, mid, 0f, used);
+		b.cents = cents;
+		b.noEntries = countEntries(cents);
+		return b;
+	}
+	
+	/**
+	* Static method to convert a float amount to cents.
+	* The nearest cent is used when it reads back as the same float. Otherwise the cents are
+	* chosen so the bill has the same whole dollars, sign and amount to one decimal place as
+	* the float, so it counts entries and prints exactly as the float did.
+	* Amounts beyond long cents are held at the largest long cents of their sign, which
+	* still count the same entries as the float.
+	* @param amount Amount as float.
+	* @return Returns amount in cents long.
+	* @throws IllegalArgumentException if the amount is not a number.
+	*/
+	public static long toCents(float amount) {
+		
+		if (Float.isNaN(amount)) throw new IllegalArgumentException("Bill amount is not a number");
+		
+		double exact = (double) amount * 100.0; //Exact, a float times 100 fits in a double.
+		if (exact >= Long.MAX_VALUE) return Long.MAX_VALUE;
+		if (exact <= Long.MIN_VALUE) return Long.MIN_VALUE;
+		long nearest = Math.round(exact);
+		if (toFloat(nearest) == amount) return nearest;
+		
+		//Below 2^17 a float is within 0.4 cents of its cents, so one of the cents
+		//at or next to the float's, truncated, is inside its dollar and tenth.
+		long truncated = (long) exact;
+		int step = (amount < 0) ? -1 : 1;
+		for (long c = truncated; c != truncated + 2 * step; c = c + step) {
+			float f = toFloat(c);
+			if ((int) f == (int) amount && (f < 0) == (amount < 0) && roundToTenths(f) == roundToTenths(amount)) {
+				return c;
+			}
+		}
+		
+		return nearest;
+	}
+	
 	/**
 	* Static method to check if a billId is in the valid format.
 	* Used during bill checking prior to adding entries.
@@ -66,6 +127,22 @@ public class Bill implements Serializable {
 		return this.memberId;
 	}
 
+	/**
+    * Get bill amount.
+    * @return Returns amount float.
+    */
+	public float getAmount() {
+		return this.cents / 100f;
+	}
+
+	/**
+    * Get bill amount in cents.
+    * @return Returns amount in cents long.
+    */
+	public long getAmountCents() {
+		return this.cents;
+	}
+
 	/**
     * Get used boolean.
     * @return Returns used boolean, true means previously used.
@@ -88,8 +165,7 @@ public class Bill implements Serializable {
     * @return Returns bill amount as a formatted string for printing.
     */
 	public String getAmountString() {
-		String amountStr = String.format("$%.1f", this.amount);
-		return amountStr;
+		return appendAmount(new StringBuilder(12).append('$')).toString();
 	}
 	
 	/**
@@ -97,8 +173,21 @@ public class Bill implements Serializable {
     * @return Returns bill amount as a string.
     */	
 	public String getAmountStringNoFormat() {
-		String amountStr = String.format("%.1f", this.amount);
-		return amountStr;
+		return appendAmount(new StringBuilder(12)).toString();
+	}
+	
+	/**
+    * Append amount to a StringBuilder to one decimal place, as "%.1f" of the float amount would.
+    * The decimal point is always '.', whatever the locale.
+    * @param sb StringBuilder to append to.
+    * @return Returns the same StringBuilder.
+    */	
+	public StringBuilder appendAmount(StringBuilder sb) {
+		
+		long tenths = roundToTenths(toFloat(this.cents));
+		if (this.cents < 0) sb.append('-');
+		
+		return sb.append(tenths / 10).append('.').append((char) ('0' + tenths % 10));
 	}
 	
 	/**
@@ -108,15 +197,9 @@ public class Bill implements Serializable {
     */
 	public int getNoEntries() {
 		
-		int noEntries;
+		if (!used) return this.noEntries;
 		
-		if (!used) {
-			noEntries = (int) this.amount / COST_PER_ENTRY;
-		} else {
-			noEntries = 0;
-		}
-		
-		return noEntries;
+		return 0;
 		
 	}
 
@@ -148,7 +231,7 @@ public class Bill implements Serializable {
     * @return Boolean value, true if not enough funds.
     */
 	public boolean notEnoughFunds() {
-		if (this.amount < COST_PER_ENTRY) return true;
+		if (this.cents < CENTS_PER_ENTRY) return true;
 		return false;
 	}
 
@@ -160,4 +243,48 @@ public class Bill implements Serializable {
 		this.used = u;
 	}
 
+	/*
+	 *  Custom deserialization hook. Entry count is transient, so set it again from cents.
+	 *  Files saved before fixed-point amounts hold a float "amount" field instead of cents.
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		
+		ObjectInputStream.GetField fields = in.readFields();
+		this.billId = (String) fields.get("billId", null);
+		this.memberId = (String) fields.get("memberId", null);
+		this.used = fields.get("used", false);
+		
+		if (fields.defaulted("cents")) {
+			this.cents = toCents(fields.get("amount", 0f));
+		} else {
+			this.cents = fields.get("cents", 0L);
+		}
+		this.noEntries = countEntries(this.cents);
+		
+	}
+	
+	/*
+	 *  Helper method to get the float an amount in cents reads as, same as Float.parseFloat
+	 *  of the amount written with up to 2 decimals.
+	 */
+	private static float toFloat(long cents) {
+		return (float) (cents / 100.0);
+	}
+	
+	/*
+	 *  Helper method to count the entries an amount in cents can purchase, from the
+	 *  float's whole dollars as (int) amount / COST_PER_ENTRY always has.
+	 */
+	private static int countEntries(long cents) {
+		return (int) toFloat(cents) / COST_PER_ENTRY;
+	}
+	
+	/*
+	 *  Helper method to round the size of a float amount half up to tenths, as "%.1f" does.
+	 *  The float times 10 and the half added are exact in a double, so no rounding creeps in.
+	 */
+	private static long roundToTenths(float amount) {
+		return (long) Math.floor(Math.abs((double) amount * 10.0) + 0.5);
+	}
+
 }
@@ -0,0 +1,341 @@
+/*
+ * Author: Damian Curran
+ */
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.Scanner;
+
+/**
+ * Runnable benchmark of loading bills into a DataProvider and looking them up by id.
+ * For each number of bills, member and bill files are written to a temporary directory and
+ * loaded, then random bill ids are looked up as a till does, with billExists, getBill and
+ * getMemberName. The same lookups are also timed as scans of the bill and member lists, as
+ * DataProvider made them before it indexed them, and both must find the same members.
+ * The largest files are then loaded several times, and also read line by line with a Scanner
+ * and split, as DataProvider read them before parsing the mapped file. Both must give the
+ * same bills. Files are removed afterwards.
+ * Usage: java BillBenchmark [bills ...], eg 10000 100000 1000000, the last also being loaded
+ * Prints one line per case, and exits with status 1 if any case fails.
+ * @author Name: Damian Curran
+ */
+public class BillBenchmark {
+
+	private final static int MEMBERS = 50000;
+	private final static int LOOKUPS = 2000;
+	private final static int WARM_UP_LOOKUPS = 200;
+	private final static int LOADS = 3; //Timed loads of each kind, after one untimed load.
+
+	private int failures = 0;
+
+	/**
+    * Main program, runs every case for each number of bills.
+    * @param args Numbers of bills.
+    */
+	public static void main(String[] args) {
+
+		int[] sizes = {10000, 100000, 1000000};
+		if (args.length > 0) {
+			sizes = new int[args.length];
+			for (int i = 0; i < args.length; i ++) {
+				sizes[i] = Integer.parseInt(args[i]);
+			}
+		}
+
+		BillBenchmark check = new BillBenchmark();
+		File dir = null;
+		try {
+			dir = File.createTempFile("billbench", "");
+			dir.delete();
+			dir.mkdir();
+			writeMembers(dir);
+			for (int bills : sizes) {
+				writeBills(dir, bills);
+				check.checkLookups(dir, bills);
+			}
+			check.checkLoad(dir, sizes[sizes.length - 1]);
+		} catch (Exception e) {
+			System.out.println("FAIL could not run: " + e);
+			check.failures++;
+		} finally {
+			deleteAll(dir);
+		}
+
+		if (check.failures > 0) {
+			System.out.println(check.failures + " case(s) failed.");
+			System.exit(1);
+		}
+		System.out.println("All cases passed.");
+
+	}
+
+	/*
+	 *  Helper logic to time the same random lookups through the DataProvider indexes
+	 *  and as scans of the bill and member lists.
+	 */
+	private void checkLookups(File dir, int bills) throws Exception {
+
+		DataProvider data = new DataProvider(new File(dir, "members.csv").getPath(),
+				new File(dir, "bills.csv").getPath(), false);
+		ArrayList<Bill> billList = new ArrayList<Bill>(bills);
+		for (int i = 0; i < bills; i ++) {
+			billList.add(Bill.withCents(billId(i), memberId(i), cents(i), false));
+		}
+		ArrayList<Member> memberList = new ArrayList<Member>(MEMBERS);
+		for (int i = 0; i < MEMBERS; i ++) {
+			memberList.add(new Member(memberId(i), "Name" + i, "m" + i + "@abc.com"));
+		}
+
+		String[] ids = new String[LOOKUPS];
+		Random random = new Random(1);
+		for (int i = 0; i < LOOKUPS; i ++) {
+			ids[i] = billId(random.nextInt(bills));
+		}
+
+		String[] indexed = new String[LOOKUPS];
+		String[] scanned = new String[LOOKUPS];
+		lookUp(data, ids, WARM_UP_LOOKUPS, indexed);
+		scan(billList, memberList, ids, WARM_UP_LOOKUPS, scanned);
+
+		long start = System.nanoTime();
+		lookUp(data, ids, LOOKUPS, indexed);
+		double indexMicros = (System.nanoTime() - start) / 1e3 / LOOKUPS;
+		start = System.nanoTime();
+		scan(billList, memberList, ids, LOOKUPS, scanned);
+		double scanMicros = (System.nanoTime() - start) / 1e3 / LOOKUPS;
+
+		String problem = null;
+		for (int i = 0; i < LOOKUPS && problem == null; i ++) {
+			if (indexed[i] == null || !indexed[i].equals(scanned[i])) {
+				problem = "bill " + ids[i] + " found member " + indexed[i] + ", the scan found " + scanned[i];
+			}
+		}
+
+		String name = "lookups, " + bills + " bills";
+		String result = String.format("index %.1f us/lookup, scan %.1f us/lookup", indexMicros, scanMicros);
+		report(name + " (" + result + ")", problem);
+
+	}
+
+	/*
+	 *  Helper logic to time loading the bill and member files into a DataProvider,
+	 *  and reading them with a Scanner and split. The fastest of the timed loads is reported.
+	 */
+	private void checkLoad(File dir, int bills) throws Exception {
+
+		String memberFile = new File(dir, "members.csv").getPath();
+		String billFile = new File(dir, "bills.csv").getPath();
+		ArrayList<Bill> billList = null;
+		DataProvider data = null;
+		long bestMapped = Long.MAX_VALUE;
+		long bestScanned = Long.MAX_VALUE;
+
+		for (int round = 0; round <= LOADS; round ++) {
+			data = null;
+			long start = System.nanoTime();
+			data = new DataProvider(memberFile, billFile, false);
+			if (round > 0) bestMapped = Math.min(bestMapped, System.nanoTime() - start);
+
+			billList = null;
+			start = System.nanoTime();
+			readMembers(memberFile);
+			billList = readBills(billFile);
+			if (round > 0) bestScanned = Math.min(bestScanned, System.nanoTime() - start);
+		}
+
+		String problem = null;
+		if (data.getBillSize() != billList.size()) {
+			problem = data.getBillSize() + " bills loaded, the Scanner read " + billList.size();
+		}
+		for (int i = 0; i < billList.size() && problem == null; i ++) {
+			Bill expected = billList.get(i);
+			Bill b = data.getBill(expected.getBillId());
+			if (!b.getMemberId().equals(expected.getMemberId())
+					|| !b.getAmountStringNoFormat().equals(expected.getAmountStringNoFormat())
+					|| b.getUsed() != expected.getUsed() || b.getNoEntries() != expected.getNoEntries()) {
+				problem = "bill " + expected.getBillId() + " loaded differently from the Scanner read";
+			}
+		}
+
+		String name = "load, " + bills + " bills";
+		String result = String.format("mapped %d ms, Scanner and split %d ms",
+				bestMapped / 1000000, bestScanned / 1000000);
+		report(name + " (" + result + ")", problem);
+
+	}
+
+	/*
+	 *  Helper method to read the member file with a Scanner and split each line.
+	 */
+	private static ArrayList<Member> readMembers(String memberFile) throws IOException {
+
+		ArrayList<Member> members = new ArrayList<Member>();
+		for (String line : readLines(memberFile)) {
+			String[] fields = line.split(",");
+			members.add(new Member(fields[0], fields[1], fields[2]));
+		}
+
+		return members;
+	}
+
+	/*
+	 *  Helper method to read the bill file with a Scanner and split each line.
+	 */
+	private static ArrayList<Bill> readBills(String billFile) throws IOException {
+
+		ArrayList<Bill> bills = new ArrayList<Bill>();
+		for (String line : readLines(billFile)) {
+			String[] fields = line.split(",");
+			bills.add(new Bill(fields[0], fields[1], Float.parseFloat(fields[2]), Boolean.parseBoolean(fields[3])));
+		}
+
+		return bills;
+	}
+
+	/*
+	 *  Helper method to read every line of a file with a Scanner.
+	 */
+	private static ArrayList<String> readLines(String fileName) throws IOException {
+
+		ArrayList<String> lines = new ArrayList<String>();
+		Scanner in = new Scanner(new File(fileName));
+		while (in.hasNextLine()) {
+			lines.add(in.nextLine());
+		}
+		in.close();
+
+		return lines;
+	}
+
+	/*
+	 *  Helper logic to look up bills and their member names through the DataProvider.
+	 */
+	private static void lookUp(DataProvider data, String[] ids, int count, String[] names) {
+
+		for (int i = 0; i < count; i ++) {
+			names[i] = null;
+			if (data.billExists(ids[i])) {
+				Bill b = data.getBill(ids[i]);
+				names[i] = data.getMemberName(b.getMemberId());
+			}
+		}
+
+	}
+
+	/*
+	 *  Helper logic to look up bills and their member names by scanning the lists,
+	 *  once for billExists, once for getBill and once for getMemberName.
+	 */
+	private static void scan(ArrayList<Bill> bills, ArrayList<Member> members, String[] ids,
+			int count, String[] names) {
+
+		for (int i = 0; i < count; i ++) {
+			names[i] = null;
+
+			boolean exists = false;
+			for (int j = 0; j < bills.size() && !exists; j ++) {
+				exists = bills.get(j).getBillId().equals(ids[i]);
+			}
+			if (!exists) continue;
+
+			Bill b = bills.get(0);
+			for (int j = 0; j < bills.size(); j ++) {
+				if (bills.get(j).getBillId().equals(ids[i])) {
+					b = bills.get(j);
+					break;
+				}
+			}
+
+			names[i] = "";
+			for (int j = 0; j < members.size(); j ++) {
+				if (members.get(j).getMemberId().equals(b.getMemberId())) {
+					names[i] = members.get(j).getName();
+					break;
+				}
+			}
+		}
+
+	}
+
+	/*
+	 *  Helper method to write the member file.
+	 */
+	private static void writeMembers(File dir) throws IOException {
+
+		File memberFile = new File(dir, "members.csv");
+		PrintWriter out = new PrintWriter(new FileWriter(memberFile));
+		for (int i = 0; i < MEMBERS; i ++) {
+			out.println(memberId(i) + ",Name" + i + ",m" + i + "@abc.com");
+		}
+		out.close();
+		if (out.checkError()) throw new IOException("Could not write " + memberFile);
+
+	}
+
+	/*
+	 *  Helper method to write a bill file, with one bill in 10 used.
+	 */
+	private static void writeBills(File dir, int bills) throws IOException {
+
+		File billFile = new File(dir, "bills.csv");
+		new File(dir, "bills.csv.used").delete();
+		PrintWriter out = new PrintWriter(new FileWriter(billFile));
+		for (int i = 0; i < bills; i ++) {
+			Bill b = Bill.withCents(billId(i), memberId(i), cents(i), false);
+			out.println(b.getBillId() + "," + b.getMemberId() + "," + b.getAmountStringNoFormat() + "," + (i % 10 == 0));
+		}
+		out.close();
+		if (out.checkError()) throw new IOException("Could not write " + billFile);
+
+	}
+
+	/*
+	 *  Helper methods giving the bill id, member id and amount in cents of the i-th bill.
+	 */
+	private static String billId(int i) {
+		return String.valueOf(100000 + i);
+	}
+
+	private static String memberId(int i) {
+		return String.valueOf(111111 + i % MEMBERS);
+	}
+
+	private static long cents(int i) {
+		return (i * 7919L) % 1000000;
+	}
+
+	/*
+	 *  Helper method to print the result of a case.
+	 */
+	private void report(String name, String problem) {
+
+		if (problem == null) {
+			System.out.println("PASS " + name);
+		} else {
+			System.out.println("FAIL " + name + ": " + problem);
+			failures++;
+		}
+
+	}
+
+	/*
+	 *  Helper method to remove the temporary directory and the files in it.
+	 */
+	private static void deleteAll(File dir) {
+
+		if (dir == null) return;
+		File[] files = dir.listFiles();
+		if (files != null) {
+			for (File f : files) {
+				f.delete();
+			}
+		}
+		dir.delete();
+
+	}
+
+}
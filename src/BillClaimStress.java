@@ -0,0 +1,222 @@
+/*
+ * Author: Damian Curran
+ */
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Runnable stress check of claiming bills from several threads at once with claimBill.
+ * Every thread tries to claim every bill, in its own shuffled order, and some bills are
+ * already used. Afterwards each unused bill must have been claimed by exactly one thread,
+ * no used bill by any, and every bill must be used once saved and loaded again.
+ * Also checks that updateBills does not mark a claimed bill unused.
+ * Bill and member files are written to a temporary directory, which is removed afterwards.
+ * Usage: java BillClaimStress [threads] [bills], eg 8 200000
+ * Prints one line per case, and exits with status 1 if any case fails.
+ * @author Name: Damian Curran
+ */
+public class BillClaimStress {
+
+	private final static int USED_EVERY = 10; //One bill in 10 is used before the claims start.
+
+	private int failures = 0;
+
+	/**
+    * Main program, runs every case against each kind of bill store.
+    * @param args Number of threads, and number of bills.
+    */
+	public static void main(String[] args) {
+
+		int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+		int bills = args.length > 1 ? Integer.parseInt(args[1]) : 200000;
+
+		BillClaimStress check = new BillClaimStress();
+		File dir = null;
+		try {
+			dir = File.createTempFile("claims", "");
+			dir.delete();
+			dir.mkdir();
+			check.checkClaims(dir, threads, bills, false);
+			check.checkClaims(dir, threads, bills, true);
+			check.checkUpdate(dir, true);
+		} catch (Exception e) {
+			System.out.println("FAIL could not run: " + e);
+			check.failures++;
+		} finally {
+			deleteAll(dir);
+		}
+
+		if (check.failures > 0) {
+			System.out.println(check.failures + " case(s) failed.");
+			System.exit(1);
+		}
+		System.out.println("All cases passed.");
+
+	}
+
+	/*
+	 *  Helper logic to claim every bill from several threads, then count the claims of each bill.
+	 */
+	private void checkClaims(File dir, int threads, final int bills, boolean columnar) throws Exception {
+
+		final DataProvider data = provider(dir, bills, columnar);
+		final String[] billIds = new String[bills];
+		for (int i = 0; i < bills; i ++) {
+			billIds[i] = String.valueOf(100000 + i);
+		}
+		final AtomicIntegerArray claims = new AtomicIntegerArray(bills);
+		final CountDownLatch start = new CountDownLatch(1);
+
+		Thread[] claimers = new Thread[threads];
+		for (int t = 0; t < threads; t ++) {
+			final int[] order = shuffled(bills, t);
+			claimers[t] = new Thread() {
+				public void run() {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+					for (int i : order) {
+						if (data.claimBill(billIds[i])) claims.incrementAndGet(i);
+					}
+				}
+			};
+			claimers[t].start();
+		}
+
+		long begin = System.nanoTime();
+		start.countDown();
+		for (Thread claimer : claimers) {
+			claimer.join();
+		}
+		long millis = (System.nanoTime() - begin) / 1000000;
+
+		int twice = 0;
+		int missed = 0;
+		for (int i = 0; i < bills; i ++) {
+			int expected = (i % USED_EVERY == 0) ? 0 : 1;
+			if (claims.get(i) > expected) twice++;
+			if (claims.get(i) < expected) missed++;
+		}
+
+		String problem = null;
+		if (twice > 0) problem = twice + " bill(s) claimed more than once";
+		if (problem == null && missed > 0) problem = missed + " unused bill(s) never claimed";
+
+		if (problem == null) {
+			data.saveBillsToFile();
+			DataProvider loaded = new DataProvider(new File(dir, "members.csv").getPath(),
+					new File(dir, "bills.csv").getPath(), columnar);
+			for (int i = 0; i < bills && problem == null; i ++) {
+				if (!loaded.getBill(billIds[i]).getUsed()) problem = "bill " + billIds[i] + " is unused after save and load";
+			}
+		}
+
+		String name = (columnar ? "columnar" : "object") + " bill store, " + threads + " thread(s)";
+		if (problem == null) {
+			System.out.println("PASS " + name + " (" + ((long) threads * bills) + " claims of " + bills + " bills in "
+					+ millis + " ms, none claimed twice)");
+		} else {
+			System.out.println("FAIL " + name + ": " + problem);
+			failures++;
+		}
+
+	}
+
+	/*
+	 *  Helper logic to check that an unused Bill read before a claim does not undo the claim
+	 *  through updateBills, and that releaseBill still does.
+	 */
+	private void checkUpdate(File dir, boolean columnar) throws Exception {
+
+		DataProvider data = provider(dir, USED_EVERY, columnar);
+		String billId = "100001";
+		Bill stale = data.getBill(billId);
+
+		String problem = null;
+		if (!data.claimBill(billId)) problem = "the bill could not be claimed";
+		if (problem == null && data.updateBills(stale)) problem = "updateBills took an unused bill over a claimed one";
+		if (problem == null && !data.getBill(billId).getUsed()) problem = "updateBills marked a claimed bill unused";
+		if (problem == null && data.claimBill(billId)) problem = "the bill was claimed twice";
+		if (problem == null) {
+			data.releaseBill(billId);
+			if (!data.claimBill(billId)) problem = "a released bill could not be claimed again";
+		}
+
+		if (problem == null) {
+			System.out.println("PASS stale unused bill does not undo a claim");
+		} else {
+			System.out.println("FAIL stale unused bill does not undo a claim: " + problem);
+			failures++;
+		}
+
+	}
+
+	/*
+	 *  Helper method to write member and bill files with one bill in USED_EVERY used,
+	 *  and load them.
+	 */
+	private static DataProvider provider(File dir, int bills, boolean columnar) throws Exception {
+
+		File memberFile = new File(dir, "members.csv");
+		File billFile = new File(dir, "bills.csv");
+		new File(dir, "bills.csv.used").delete();
+
+		PrintWriter members = new PrintWriter(new FileWriter(memberFile));
+		members.println("111111,Stress,stress@abc.com");
+		members.close();
+
+		PrintWriter out = new PrintWriter(new FileWriter(billFile));
+		for (int i = 0; i < bills; i ++) {
+			out.println((100000 + i) + ",111111,100.0," + (i % USED_EVERY == 0));
+		}
+		out.close();
+		if (out.checkError()) throw new IOException("Could not write " + billFile);
+
+		return new DataProvider(memberFile.getPath(), billFile.getPath(), columnar);
+	}
+
+	/*
+	 *  Helper method to list the slots 0 to n - 1 in a shuffled order, the same for each seed.
+	 */
+	private static int[] shuffled(int n, long seed) {
+
+		int[] order = new int[n];
+		for (int i = 0; i < n; i ++) {
+			order[i] = i;
+		}
+		Random random = new Random(seed);
+		for (int i = n - 1; i > 0; i --) {
+			int j = random.nextInt(i + 1);
+			int swap = order[i];
+			order[i] = order[j];
+			order[j] = swap;
+		}
+
+		return order;
+	}
+
+	/*
+	 *  Helper method to remove the temporary directory and the files in it.
+	 */
+	private static void deleteAll(File dir) {
+
+		if (dir == null) return;
+		File[] files = dir.listFiles();
+		if (files != null) {
+			for (File f : files) {
+				f.delete();
+			}
+		}
+		dir.delete();
+
+	}
+
+}
@@ -0,0 +1,142 @@
+/*
+ * Author: Damian Curran
+ */
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Store of the bills held by the DataProvider, addressed by slot (bill 1 = slot 0).
+ * Default store keeps a list of Bill objects.
+ * Derived classes can keep the bills in other layouts.
+ * @author Name: Damian Curran
+ */
+public class BillStore implements Serializable {
+
+	private static final long serialVersionUID = 2338381337641801466L;
+	private ArrayList<Bill> bills;
+
+	//Bill id to slot index. Not serialized, rebuilt after load (see readObject).
+	private transient HashMap<String, Integer> index;
+
+	/**
+    * Constructor of the BillStore class.
+    */
+	public BillStore() {
+		this(new ArrayList<Bill>());
+	}
+
+	/**
+    * Overloaded constructor of the BillStore class, for an existing list of bills.
+    * @param bills List of Bill objects to store.
+    */
+	public BillStore(ArrayList<Bill> bills) {
+		this.bills = bills;
+		buildIndex();
+	}
+
+	/**
+    * Get number of bills in the store.
+    * @return Returns number of bills integer.
+    */
+	public int size() {
+		return bills.size();
+	}
+
+	/**
+    * Get the bill at a slot.
+    * @param slot Slot of the bill, integer.
+    * @return Returns Bill object at the slot.
+    */
+	public Bill getBill(int slot) {
+		return bills.get(slot);
+	}
+
+	/**
+    * Get the slot of a bill given a billId.
+    * Where an id is repeated, the first slot is returned.
+    * @param billId String billId.
+    * @return Returns slot integer, -1 if the bill is not in the store.
+    */
+	public int indexOf(String billId) {
+
+		Integer slot = index.get(billId);
+		if (slot != null) return slot;
+
+		return -1;
+	}
+
+	/**
+    * Add a bill to the end of the store.
+    * @param b Bill object to add.
+    */
+	public void add(Bill b) {
+		bills.add(b);
+		index.putIfAbsent(b.getBillId(), bills.size() - 1);
+	}
+
+	/**
+    * Add a bill given as numeric 6-digit ids. Overriden in derived classes.
+    * The default store keeps Bill objects, so the caller must add a Bill instead.
+    * @param billId Bill id as integer.
+    * @param memberId Member id as integer, -1 if the bill has no member id.
+    * @param amount Bill amount in cents, long.
+    * @param used Boolean indicating if bill previously used.
+    * @return Returns boolean, true if the bill was added.
+    */
+	public boolean addNumeric(int billId, int memberId, long amount, boolean used) {
+		return false; //To override
+	}
+
+	/**
+    * Replace the bill at a slot.
+    * @param slot Slot of the bill, integer.
+    * @param b Bill object to store.
+    */
+	public void set(int slot, Bill b) {
+		bills.set(slot, b);
+	}
+
+	/**
+    * Get if the bill at a slot is used.
+    * @param slot Slot of the bill, integer.
+    * @return Returns boolean, true if the bill is used.
+    */
+	public boolean getUsed(int slot) {
+		return bills.get(slot).getUsed();
+	}
+
+	/**
+    * Set if the bill at a slot is used.
+    * @param slot Slot of the bill, integer.
+    * @param u Boolean indicating new value, true means used.
+    */
+	public void setUsed(int slot, boolean u) {
+		bills.get(slot).setUsed(u);
+	}
+
+	/*
+	 *  Helper method to build the bill id index from the bill list.
+	 */
+	private void buildIndex() {
+
+		index = new HashMap<String, Integer>(bills.size() * 2);
+		for (int i = 0; i < bills.size(); i ++) {
+			index.putIfAbsent(bills.get(i).getBillId(), i);
+		}
+
+	}
+
+	/*
+	 *  Custom deserialization hook. Index is transient, so rebuild it
+	 *  once the bill list has been read back from a saved file.
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		buildIndex();
+	}
+
+}
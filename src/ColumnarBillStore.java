@@ -0,0 +1,245 @@
+/*
+ * Author: Damian Curran
+ */
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Derived BillStore keeping bills in primitive columns rather than Bill objects.
+ * Amounts are kept in cents.
+ * Bill and member ids are stored as ints, so every id must be a 6-digit number
+ * (member id may also be empty). Bill objects are created only when asked for,
+ * as copies of a slot. Changes to a copy are stored back with set.
+ * @author Name: Damian Curran
+ */
+public class ColumnarBillStore extends BillStore implements Serializable {
+
+	private static final long serialVersionUID = 8925390917913898887L;
+	private final static int ID_LIMIT = 1000000;
+	private final static int NO_MEMBER = -1;
+	private final static int INITIAL_CAPACITY = 1024;
+
+	private int size;
+	private int[] billIds;
+	private int[] memberIds;
+	private long[] cents;
+	private BitSet used;
+
+	//Bill id to slot, -1 if no bill. Ids are 6 digits so a direct table is enough.
+	//Not serialized, rebuilt after load (see readObject).
+	private transient int[] slotById;
+
+	/**
+    * Constructor of the ColumnarBillStore class.
+    */
+	public ColumnarBillStore() {
+
+		super();
+		this.size = 0;
+		this.billIds = new int[INITIAL_CAPACITY];
+		this.memberIds = new int[INITIAL_CAPACITY];
+		this.cents = new long[INITIAL_CAPACITY];
+		this.used = new BitSet();
+		buildIndex();
+
+	}
+
+	/**
+    * Get number of bills in the store. Override.
+    * @return Returns number of bills integer.
+    */
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+    * Get a copy of the bill at a slot. Override.
+    * @param slot Slot of the bill, integer.
+    * @return Returns new Bill object with the values at the slot.
+    */
+	@Override
+	public Bill getBill(int slot) {
+
+		checkSlot(slot);
+		String memberId = memberIds[slot] == NO_MEMBER ? "" : formatId(memberIds[slot]);
+		return Bill.withCents(formatId(billIds[slot]), memberId, cents[slot], used.get(slot));
+
+	}
+
+	/**
+    * Get the slot of a bill given a billId. Override.
+    * @param billId String billId.
+    * @return Returns slot integer, -1 if the bill is not in the store.
+    */
+	@Override
+	public int indexOf(String billId) {
+
+		int id = parseId(billId);
+		if (id < 0) return -1;
+
+		return slotById[id];
+	}
+
+	/**
+    * Add a bill to the end of the store. Override.
+    * @param b Bill object to add.
+    * @throws IllegalArgumentException if the bill ids are not 6-digit numbers.
+    */
+	@Override
+	public void add(Bill b) {
+
+		int billId = parseId(b.getBillId());
+		int memberId = b.hasMemberId() ? parseId(b.getMemberId()) : NO_MEMBER;
+		if (billId < 0 || (memberId < 0 && b.hasMemberId())) {
+			throw new IllegalArgumentException("Bill ids must be 6-digit numbers: " + b.getBillId());
+		}
+
+		addNumeric(billId, memberId, b.getAmountCents(), b.getUsed());
+
+	}
+
+	/**
+    * Add a bill given as numeric 6-digit ids. Override.
+    * @param billId Bill id as integer.
+    * @param memberId Member id as integer, -1 if the bill has no member id.
+    * @param amount Bill amount in cents, long.
+    * @param u Boolean indicating if bill previously used.
+    * @return Returns boolean, always true.
+    */
+	@Override
+	public boolean addNumeric(int billId, int memberId, long amount, boolean u) {
+
+		if (size == billIds.length) grow();
+
+		billIds[size] = billId;
+		memberIds[size] = memberId;
+		cents[size] = amount;
+		used.set(size, u);
+		if (slotById[billId] == -1) slotById[billId] = size;
+		size++;
+
+		return true;
+	}
+
+	/**
+    * Store the values of a bill at a slot. Override.
+    * Ids are fixed by the slot, so only the amount and used flag are stored.
+    * @param slot Slot of the bill, integer.
+    * @param b Bill object holding the new values.
+    */
+	@Override
+	public void set(int slot, Bill b) {
+
+		checkSlot(slot);
+		cents[slot] = b.getAmountCents();
+		used.set(slot, b.getUsed());
+
+	}
+
+	/**
+    * Get if the bill at a slot is used. Override.
+    * @param slot Slot of the bill, integer.
+    * @return Returns boolean, true if the bill is used.
+    */
+	@Override
+	public boolean getUsed(int slot) {
+
+		checkSlot(slot);
+		return used.get(slot);
+	}
+
+	/**
+    * Set if the bill at a slot is used. Override.
+    * @param slot Slot of the bill, integer.
+    * @param u Boolean indicating new value, true means used.
+    */
+	@Override
+	public void setUsed(int slot, boolean u) {
+
+		checkSlot(slot);
+		used.set(slot, u);
+
+	}
+
+	/**
+    * Static method to parse a 6-digit id into an integer.
+    * @param id String of the id.
+    * @return Returns id integer, -1 if the id is not exactly 6 digits.
+    */
+	public static int parseId(String id) {
+
+		if (id.length() != 6) return -1;
+
+		int value = 0;
+		for (int i = 0; i < 6; i ++) {
+			char c = id.charAt(i);
+			if (c < '0' || c > '9') return -1;
+			value = value * 10 + (c - '0');
+		}
+
+		return value;
+	}
+
+	/*
+	 *  Helper method to format an id integer as a 6-digit String, keeping leading zeros.
+	 */
+	private static String formatId(int id) {
+
+		char[] digits = new char[6];
+		for (int i = 5; i >= 0; i --) {
+			digits[i] = (char) ('0' + id % 10);
+			id = id / 10;
+		}
+
+		return new String(digits);
+	}
+
+	/*
+	 *  Helper method to build the bill id table from the id column.
+	 */
+	private void buildIndex() {
+
+		slotById = new int[ID_LIMIT];
+		Arrays.fill(slotById, -1);
+		for (int i = 0; i < size; i ++) {
+			if (slotById[billIds[i]] == -1) slotById[billIds[i]] = i;
+		}
+
+	}
+
+	/*
+	 *  Custom deserialization hook. Id table is transient, so rebuild it
+	 *  once the columns have been read back from a saved file.
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		buildIndex();
+	}
+
+	/*
+	 *  Helper method to grow the columns by half again.
+	 */
+	private void grow() {
+
+		int capacity = billIds.length + (billIds.length >> 1);
+		billIds = Arrays.copyOf(billIds, capacity);
+		memberIds = Arrays.copyOf(memberIds, capacity);
+		cents = Arrays.copyOf(cents, capacity);
+
+	}
+
+	/*
+	 *  Helper method to check a slot is in the store, as a list would.
+	 */
+	private void checkSlot(int slot) {
+		if (slot < 0 || slot >= size) {
+			throw new IndexOutOfBoundsException("Slot " + slot + " out of bounds for size " + size);
+		}
+	}
+
+}
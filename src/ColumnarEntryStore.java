@@ -0,0 +1,223 @@
+/*
+ * Author: Damian Curran
+ */
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Derived EntryStore keeping entries in primitive columns rather than Entry objects.
+ * Each entry holds the slot of its bill, and its numbers as a bitmask with the entry type
+ * in the top bits. The bill slot leads to the bill id and member in an EntryNameTable.
+ * Entry ids are only stored once an entry is added out of id order, and prizes once one is set.
+ * Entry objects are created only when asked for, as copies of a slot.
+ * Changes to a copy are stored back with set.
+ * @author Name: Damian Curran
+ */
+public class ColumnarEntryStore extends EntryStore implements Serializable {
+
+	private static final long serialVersionUID = -7879793206363118675L;
+	private final static int INITIAL_CAPACITY = 1024;
+
+	private int size;
+	private int[] billSlots;
+	private long[] numberMasks; //null while every entry is a plain entry.
+	private int[] entryIds; //null while every entry id is its slot + 1.
+	private int[] prizes; //null until a prize is set.
+	private EntryNameTable names;
+
+	//Bill of the last entry stored, as the entries of a bill are stored one after another.
+	//Not serialized, the first entry stored after load looks its bill up.
+	private transient String lastBillId;
+	private transient String lastMemberId;
+	private transient String lastMemberName;
+	private transient int lastBill;
+
+	/**
+    * Constructor of the ColumnarEntryStore class.
+    */
+	public ColumnarEntryStore() {
+
+		super();
+		this.size = 0;
+		this.billSlots = new int[INITIAL_CAPACITY];
+		this.names = new EntryNameTable();
+
+	}
+
+	/**
+    * Get number of entries in the store. Override.
+    * @return Returns number of entries integer.
+    */
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+    * Get a copy of the entry at a slot. Override.
+    * @param slot Slot of the entry, integer.
+    * @return Returns new Entry object of the type added, with the values at the slot.
+    */
+	@Override
+	public Entry getEntry(int slot) {
+
+		checkSlot(slot);
+		int bill = billSlots[slot];
+		int member = names.getBillMember(bill);
+
+		return createEntry(numberMasks == null ? 0 : numberMasks[slot], getEntryId(slot),
+				names.getMemberId(member), names.getBillId(bill), names.getMemberName(member), getPrize(slot));
+	}
+
+	/**
+    * Add an entry to the end of the store. Override.
+    * @param e Entry object to add.
+    */
+	@Override
+	public void add(Entry e) {
+
+		if (size == billSlots.length) grow();
+		size++;
+		store(size - 1, e);
+
+	}
+
+	/**
+    * Store the values of an entry at a slot. Override.
+    * @param slot Slot of the entry, integer.
+    * @param e Entry object holding the new values.
+    */
+	@Override
+	public void set(int slot, Entry e) {
+
+		checkSlot(slot);
+		store(slot, e);
+
+	}
+
+	/**
+    * Get the entry id of the entry at a slot. Override.
+    * @param slot Slot of the entry, integer.
+    * @return Returns entry id integer.
+    */
+	@Override
+	public int getEntryId(int slot) {
+
+		checkSlot(slot);
+		if (entryIds == null) return slot + 1;
+
+		return entryIds[slot];
+	}
+
+	/**
+    * Get the member id of the entry at a slot. Override.
+    * @param slot Slot of the entry, integer.
+    * @return Returns member id String, shared by all entries of the member.
+    */
+	@Override
+	public String getMemberId(int slot) {
+
+		checkSlot(slot);
+		return names.getMemberId(names.getBillMember(billSlots[slot]));
+	}
+
+	/**
+    * Get the numbers of the entry at a slot as a bitmask. Override.
+    * @param slot Slot of the entry, integer.
+    * @return Returns bitmask of the numbers, 0 if the entry has no numbers.
+    */
+	@Override
+	public long getNumberMask(int slot) {
+
+		checkSlot(slot);
+		if (numberMasks == null) return 0;
+
+		return numberMasks[slot] & NUMBERS;
+	}
+
+	/**
+    * Get the prize of the entry at a slot. Override.
+    * @param slot Slot of the entry, integer.
+    * @return Returns prize integer.
+    */
+	@Override
+	public int getPrize(int slot) {
+
+		checkSlot(slot);
+		if (prizes == null) return 0;
+
+		return prizes[slot];
+	}
+
+	/**
+    * Set the prize of the entry at a slot. Override.
+    * @param slot Slot of the entry, integer.
+    * @param p Prize, integer.
+    */
+	@Override
+	public void setPrize(int slot, int p) {
+
+		checkSlot(slot);
+		if (prizes == null) {
+			if (p == 0) return;
+			prizes = new int[billSlots.length];
+		}
+		prizes[slot] = p;
+
+	}
+
+	/*
+	 *  Helper method to store the values of an entry at a slot.
+	 *  Optional columns are created the first time they hold something other than the default.
+	 *  The bill is only looked up when the entry does not share the strings of the last entry stored.
+	 */
+	private void store(int slot, Entry e) {
+
+		if (e.getBillId() != lastBillId || e.getMemberId() != lastMemberId || e.getMemberName() != lastMemberName) {
+			lastBill = names.billSlotFor(e.getBillId(), e.getMemberId(), e.getMemberName());
+			lastBillId = e.getBillId();
+			lastMemberId = e.getMemberId();
+			lastMemberName = e.getMemberName();
+		}
+		billSlots[slot] = lastBill;
+
+		long mask = typedMask(e);
+		if (numberMasks == null && mask != 0) numberMasks = new long[billSlots.length];
+		if (numberMasks != null) numberMasks[slot] = mask;
+
+		if (entryIds == null && e.getEntryId() != slot + 1) {
+			entryIds = new int[billSlots.length];
+			for (int i = 0; i < size; i ++) {
+				entryIds[i] = i + 1;
+			}
+		}
+		if (entryIds != null) entryIds[slot] = e.getEntryId();
+
+		setPrize(slot, e.getPrize());
+
+	}
+
+	/*
+	 *  Helper method to grow the columns by half again.
+	 */
+	private void grow() {
+
+		int capacity = billSlots.length + (billSlots.length >> 1);
+		billSlots = Arrays.copyOf(billSlots, capacity);
+		if (numberMasks != null) numberMasks = Arrays.copyOf(numberMasks, capacity);
+		if (entryIds != null) entryIds = Arrays.copyOf(entryIds, capacity);
+		if (prizes != null) prizes = Arrays.copyOf(prizes, capacity);
+
+	}
+
+	/*
+	 *  Helper method to check a slot is in the store, as a list would.
+	 */
+	private void checkSlot(int slot) {
+		if (slot < 0 || slot >= size) {
+			throw new IndexOutOfBoundsException("Slot " + slot + " out of bounds for size " + size);
+		}
+	}
+
+}
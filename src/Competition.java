@@ -2,9 +2,19 @@
  * Author: Damian Curran
  */
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Class represents a single Competition.
@@ -13,11 +23,46 @@ import java.util.Scanner;
  */
 public class Competition implements Serializable {
 
+	private static final long serialVersionUID = -1482862173458508635L;
+
 	private int id;
 	private String name;
-	private ArrayList<Entry> entries;
+	private ArrayList<Entry> entries; //Only set in files saved before entries were kept in an EntryStore.
 	private boolean testingMode;
-	private boolean active;
+	private volatile boolean active; //Read without a lock, such as by the HTTP summary.
+	private EntryStore entryStore;
+	
+	//Entries are normally added in id order, so entry id n is found at index n - 1. Ids that
+	//were abandoned start a new run of ids at another index: the first id of each run maps to
+	//its id less its index. Index of the first entry with each id that is added after a higher id.
+	//Not serialized, rebuilt after load (see readObject).
+	private transient ConcurrentSkipListMap<Integer, Integer> entryIdRuns;
+	private transient ConcurrentHashMap<Integer, Integer> displacedEntries;
+	private transient int maxEntryId; //Written holding appendLock.
+	
+	//Entries may be added from several threads. A writer reserves a block of entry ids, builds
+	//its entries without a lock, then hands the block to pendingBlocks. Blocks go into the store
+	//in id order: whichever writer holds appendLock adds every block that follows on from the ids
+	//already added, for itself and for writers that found the lock taken, which do not wait for it.
+	//Readers see entries up to noEntries, which is written once they are in the store.
+	//Not serialized, set up after load (see readObject).
+	private transient AtomicInteger reservedEntryIds; //Last entry id reserved.
+	private transient ConcurrentSkipListMap<Integer, EntryBlock> pendingBlocks; //By first entry id.
+	private transient ReentrantLock appendLock;
+	private transient volatile int addedEntryIds; //Every id up to this is added or abandoned. Written holding appendLock.
+	private transient volatile int noEntries;
+	
+	//Once closed, such as for the draw, blocks of reserved entries are refused.
+	//Added blocks are kept in id order, once asked for, to be journaled in that order.
+	//Not serialized, set up after load (see readObject).
+	private transient volatile boolean closed;
+	private transient volatile ConcurrentLinkedQueue<EntryBlock> addedBlocks;
+	
+	//Number of winning entries and total of prizes. Prizes are final once the competition is
+	//inactive, so they are counted once then. Counted on every call while active.
+	private transient boolean prizesCounted;
+	private transient int noWinners;
+	private transient int totalPrizes;
 	
 	/**
     * Constructor of the Competitions class.
@@ -26,11 +71,23 @@ public class Competition implements Serializable {
     * @param tmode Testing mode boolean, true if the object is created whilst in 'Testing mode'.
     */
 	public Competition(String n, int id, boolean tmode) {
+		this(n, id, tmode, new ColumnarEntryStore());
+	}
+	
+	/**
+    * Overloaded constructor of the Competitions class, keeping entries in the given store.
+    * @param n The name of new Competition object, a String.
+    * @param id The id of the new object, int.
+    * @param tmode Testing mode boolean, true if the object is created whilst in 'Testing mode'.
+    * @param store EntryStore object holding the entries, which may already hold some.
+    */
+	public Competition(String n, int id, boolean tmode, EntryStore store) {
 		this.name = n;
 		this.id = id;
-		this.entries = new ArrayList<Entry>();
+		this.entryStore = store;
 		this.testingMode = tmode;
 		this.active = true;
+		setUpEntries();
 		
 	}
 	
@@ -58,12 +115,20 @@ public class Competition implements Serializable {
 		return "";
 	}
 	
+	/**
+    * Get the store holding the entries of the competition.
+    * @return Returns EntryStore object.
+    */
+	public EntryStore getEntryStore() {
+		return entryStore;
+	}
+	
 	/**
     * Get number of entries in the competition.
     * @return Returns number int.
     */
 	public int getNoEntries() {
-		return entries.size();
+		return noEntries;
 	}
 	
 	/**
@@ -73,35 +138,85 @@ public class Competition implements Serializable {
     */
 	public int getNoWinningEntries() {
 		
-		int noWinners = 0; 
-		for (int i = 0; i < this.getNoEntries(); i ++) {
-			Entry e = this.getEntryFromIndex(i);
-			if (e.getPrize() != 0) noWinners++;
-		}
-		
+		if (!prizesCounted) countPrizes();
 		return noWinners;
 	}	
 	
 	/**
     * Get specific entry in the competition based on index id (entry 1 = index 0).
+    * The entry may be a copy, so changes must be saved with updateEntries.
     * @param index Integer index of entry to locate.
     * @return Returns Entry object.
     */
 	public Entry getEntryFromIndex(int index) {
-		return entries.get(index);
+		return entryStore.getEntry(index);
+	}
+
+	/**
+    * Get the id of an entry, without creating an Entry object.
+    * @param index Integer index of entry (entry 1 = index 0).
+    * @return Returns entry id integer.
+    */
+	public int getEntryId(int index) {
+		return entryStore.getEntryId(index);
+	}
+
+	/**
+    * Get the member id of an entry, without creating an Entry object.
+    * @param index Integer index of entry (entry 1 = index 0).
+    * @return Returns member id String.
+    */
+	public String getEntryMemberId(int index) {
+		return entryStore.getMemberId(index);
+	}
+
+	/**
+    * Get the numbers of an entry as a bitmask, without creating an Entry object.
+    * @param index Integer index of entry (entry 1 = index 0).
+    * @return Returns bitmask of the numbers, 0 if the entry has no numbers.
+    */
+	public long getEntryNumberMask(int index) {
+		return entryStore.getNumberMask(index);
+	}
+
+	/**
+    * Get the prize of an entry, without creating an Entry object.
+    * @param index Integer index of entry (entry 1 = index 0).
+    * @return Returns prize integer.
+    */
+	public int getEntryPrize(int index) {
+		return entryStore.getPrize(index);
+	}
+
+	/**
+    * Set the prize of an entry, without creating an Entry object.
+    * @param index Integer index of entry (entry 1 = index 0).
+    * @param prize Prize, integer.
+    */
+	public void setEntryPrize(int index, int prize) {
+		
+		appendLock.lock();
+		try {
+			entryStore.setPrize(index, prize);
+			prizesCounted = false;
+		} finally {
+			unlockAppend();
+		}
+		
 	}
 
 	/**
     * Get specific entry in the competition based on entryId.
+    * Where an id is repeated, the first entry added with it is returned.
     * @param entryId Integer id of entry to locate.
     * @return Returns Entry object.
     */
 	public Entry getEntryFromID(int entryId) {
 		
-		for (Entry e : entries) {
-			if (e.getEntryId() == entryId) return e;
-		}
-		return entries.get(entryId - 1); //default return
+		int index = indexOfEntryId(entryId);
+		if (index >= 0) return entryStore.getEntry(index);
+		
+		return entryStore.getEntry(entryId - 1); //default return
 	}
 
 	/**
@@ -110,13 +225,7 @@ public class Competition implements Serializable {
     */
 	public int getTotalPrizes() {
 		
-		int totalPrizes = 0; 
-		for (int i = 0; i < this.getNoEntries(); i ++) {
-			Entry e = this.getEntryFromIndex(i);
-			int p = e.getPrize();
-			if (p != 0) totalPrizes = totalPrizes + p;
-		}
-		
+		if (!prizesCounted) countPrizes();
 		return totalPrizes;
 	}	
 
@@ -166,15 +275,147 @@ public class Competition implements Serializable {
     * @param b Boolean for active status, true is active.
     */
 	public void setActive(boolean b) {
+		
 		this.active = b;
+		this.prizesCounted = false;
+		if (!b) {
+			closeEntries();
+			countPrizes();
+		}
+		
+	}
+	
+	/**
+    * Reserve a block of entry ids for entries about to be added. Safe to call from any thread.
+    * Entries with the reserved ids can then be built without a lock, and added with addEntryBatch
+    * or addEntryRange from the same or another thread. Every reserved id must be added or abandoned
+    * with abandonEntryIds, as entries with later ids are not seen by readers until it is.
+    * @param count Number of entry ids to reserve, integer.
+    * @return Returns first reserved entry id integer.
+    */
+	public int reserveEntryIds(int count) {
+		return reservedEntryIds.getAndAdd(count) + 1;
+	}
+	
+	/**
+    * Give up reserved entry ids without adding entries for them, so entries with later ids
+    * are not held back. Safe to call from any thread.
+    * @param firstEntryId First reserved entry id to give up, integer.
+    * @param count Number of entry ids to give up, integer.
+    */
+	public void abandonEntryIds(int firstEntryId, int count) {
+		
+		if (count > 0) addBlock(new EntryBlock(firstEntryId, count));
+		
 	}
 	
 	/**
-    * Add entry to the competition.
+    * Add an entry with an id that was not reserved, such as an entry read from a file,
+    * to the end of the competition. Safe to call from any thread.
     * @param e Entry object to add.
     */
 	public void addEntry(Entry e) {
-		entries.add(e);
+		
+		appendLock.lock();
+		try {
+			append(e);
+		} finally {
+			unlockAppend();
+		}
+		
+	}
+	
+	/**
+    * Add entries with consecutive reserved ids to the competition, as one block.
+    * Safe to call from any thread. Returns once the entries are seen by readers, which is once
+    * every earlier reserved id has been added or abandoned.
+    * @param batch List of Entry objects to add, in id order, one for each reserved id.
+    */
+	public void addEntryBatch(ArrayList<Entry> batch) {
+		
+		if (batch.isEmpty()) return;
+		addBlock(new EntryBlock(batch));
+		
+	}
+	
+	/**
+    * Add a run of plain entries with consecutive reserved ids from one bill to the competition.
+    * Same as adding each entry with addEntryBatch, but stores that keep runs add them at once.
+    * Safe to call from any thread. Returns once the entries are seen by readers, which is once
+    * every earlier reserved id has been added or abandoned.
+    * @param firstEntryId Entry id of the first entry, integer.
+    * @param count Number of entries, integer.
+    * @param memberId Member id String.
+    * @param billId Bill id String.
+    * @param memberName Member name String.
+    */
+	public void addEntryRange(int firstEntryId, int count, String memberId, String billId, String memberName) {
+		
+		if (count <= 0) return;
+		addBlock(new EntryBlock(firstEntryId, count, memberId, billId, memberName));
+		
+	}
+	
+	/**
+    * Identify if the competition has an entry with an id.
+    * @param entryId Integer id of entry to look for.
+    * @return Returns boolean, true if an entry has the id.
+    */
+	public boolean hasEntryId(int entryId) {
+		return indexOfEntryId(entryId) >= 0;
+	}
+	
+	/**
+    * Refuse any further entries with reserved ids, such as before the draw. Safe to call from any thread.
+    * Entries already added stay. A writer whose entries are refused gets an IllegalStateException.
+    * Entries read from a file with addEntry are still added.
+    */
+	public void closeEntries() {
+		
+		appendLock.lock();
+		try {
+			closed = true;
+		} finally {
+			unlockAppend();
+		}
+		
+	}
+	
+	/**
+    * Identify if the competition refuses entries with reserved ids, see closeEntries.
+    * @return Returns boolean, true if closed.
+    */
+	public boolean getIsClosed() {
+		return closed;
+	}
+	
+	/**
+    * Keep each block of reserved entries from now on once it is added, to be taken in id order
+    * with takeAddedBlock, such as to journal the entries in the order their ids were reserved.
+    */
+	public void keepAddedBlocks() {
+		
+		if (addedBlocks != null) return;
+		
+		appendLock.lock();
+		try {
+			if (addedBlocks == null) addedBlocks = new ConcurrentLinkedQueue<EntryBlock>();
+		} finally {
+			unlockAppend();
+		}
+		
+	}
+	
+	/**
+    * Take the oldest block kept by keepAddedBlocks. Safe to call from any thread.
+    * @return Returns EntryBlock object, null if no block is waiting to be taken.
+    */
+	public EntryBlock takeAddedBlock() {
+		
+		ConcurrentLinkedQueue<EntryBlock> blocks = addedBlocks;
+		if (blocks == null) return null;
+		
+		return blocks.poll();
 	}
 
 	/**
@@ -197,13 +438,65 @@ public class Competition implements Serializable {
 		//To override
 	}
 	
+	/**
+    * Logic for adding entries from a bill without user input. Overriden in derived classes.
+    * Overloaded with the manual number sets for the bill, for competition types that take them.
+    * @param b Bill object to which the new entries will be assigned.
+    * @param memberName String of member name associated with the Bill.
+    * @param manualEntries List of manual number sets, already checked with checkManualNumbers.
+    * @return Returns the entry id of the first entry added, the rest following on from it.
+    */
+	public int addEntries(Bill b, String memberName, ArrayList<int[]> manualEntries)  {
+		return 0; //To override
+	}
+	
+	/**
+    * Ask the user for the manual number sets of a bill, for competition types that take them.
+    * Overriden in derived classes.
+    * @param b Bill object the entries will be added from.
+    * @param keyboard Scanner object used for user input.
+    * @return Returns list of manual number sets, checked with checkManualNumbers.
+    */
+	public ArrayList<int[]> readManualEntries(Bill b, Scanner keyboard) {
+		return new ArrayList<int[]>(); //To override
+	}
+	
+	/**
+    * Print entries just added from a bill to the console. Overriden in derived classes.
+    * @param firstEntryId Entry id of the first entry added, integer.
+    * @param count Number of entries added, integer.
+    */
+	public void printNewEntries(int firstEntryId, int count) {
+		//To override
+	}
+	
+	/**
+    * Check a manual number set for an entry. Overriden in derived classes that take manual numbers.
+    * @param numbers Integer array of the numbers entered.
+    * @return Returns null if the numbers are valid, otherwise a String describing the problem.
+    */
+	public String checkManualNumbers(int[] numbers) {
+		return "This competition does not take manual numbers."; //To override
+	}
+	
 	/**
 	* Update entries in competition.
+	* Replaces the entry with the same entryId, as found by getEntryFromID.
 	* @param e Entry object for updating.
 	*/
 	public void updateEntries (Entry e) {
-		int index = e.getEntryId() - 1;
-		entries.set(index, e);
+		
+		int index = indexOfEntryId(e.getEntryId());
+		if (index < 0) index = e.getEntryId() - 1; //default index
+		
+		appendLock.lock();
+		try {
+			entryStore.set(index, e);
+			prizesCounted = false;
+		} finally {
+			unlockAppend();
+		}
+		
 	}
 
 	/**
@@ -221,6 +514,28 @@ public class Competition implements Serializable {
 		//To override
 	}
 	
+	/**
+    * Write state specific to the derived competition type to a binary snapshot.
+    * Overriden in derived classes that hold such state.
+    * @param out Stream to write to.
+    * @param format SnapshotFormat object writing the snapshot.
+    * @throws IOException if the stream cannot be written.
+    */
+	public void writeDetails(DataOutputStream out, SnapshotFormat format) throws IOException {
+		//To override
+	}
+	
+	/**
+    * Read state specific to the derived competition type from a binary snapshot.
+    * Overriden in derived classes that hold such state.
+    * @param in Stream to read from.
+    * @param format SnapshotFormat object reading the snapshot.
+    * @throws IOException if the stream cannot be read.
+    */
+	public void readDetails(DataInputStream in, SnapshotFormat format) throws IOException {
+		//To override
+	}
+	
 	/**
     * Print competition details to the console, including id, name and type.
     */
@@ -246,5 +561,271 @@ public class Competition implements Serializable {
 			
 		}
 	}
+	
+	/*
+	 *  Helper method to count winning entries and total prizes in one pass.
+	 *  Counts are kept for later calls only if the competition is inactive.
+	 */
+	private void countPrizes() {
+		
+		int winners = 0;
+		int total = 0;
+		for (int i = 0; i < this.getNoEntries(); i ++) {
+			int p = this.getEntryPrize(i);
+			if (p != 0) {
+				winners++;
+				total = total + p;
+			}
+		}
+		
+		noWinners = winners;
+		totalPrizes = total;
+		prizesCounted = !active;
+		
+	}
+	
+	/*
+	 *  Helper method to hand a block of reserved ids to the competition and wait until it is added.
+	 *  Ids that were not reserved, or are already added, are added straight away.
+	 */
+	private void addBlock(EntryBlock block) {
+		
+		if (block.getFirstEntryId() <= addedEntryIds || block.getLastEntryId() > reservedEntryIds.get()
+				|| pendingBlocks.putIfAbsent(block.getFirstEntryId(), block) != null) {
+			appendLock.lock();
+			try {
+				appendBlock(block);
+			} finally {
+				unlockAppend();
+			}
+		} else {
+			appendHandedOver();
+		}
+		block.awaitAdded();
+		
+	}
+	
+	/*
+	 *  Helper method to let go of appendLock. Blocks handed over while it was held are added
+	 *  first, and again once it is let go, as their writers did not wait for the lock
+	 *  (see appendHandedOver). Every holder of appendLock lets go of it this way, so no handed
+	 *  over block is left waiting. Called holding appendLock.
+	 */
+	private void unlockAppend() {
+		
+		try {
+			appendReady();
+		} finally {
+			published();
+			appendLock.unlock();
+		}
+		appendHandedOver();
+		
+	}
+	
+	/*
+	 *  Helper method to add waiting blocks that follow on from the ids already added, unless
+	 *  another thread holds appendLock. That thread checks again once it has let go of the lock,
+	 *  so a block handed over while it held the lock is not left waiting.
+	 */
+	private void appendHandedOver() {
+		
+		while (isReady(pendingBlocks.firstEntry())) {
+			if (!appendLock.tryLock()) return;
+			try {
+				appendReady();
+			} finally {
+				published();
+				appendLock.unlock();
+			}
+		}
+		
+	}
+	
+	/*
+	 *  Helper method to check if a waiting block follows on from the ids already added.
+	 *  Blocks are added by id range, so a block overlapping the added ids is ready too.
+	 */
+	private boolean isReady(Map.Entry<Integer, EntryBlock> first) {
+		return first != null && first.getKey() <= addedEntryIds + 1;
+	}
+	
+	/*
+	 *  Helper method to add the waiting blocks that follow on from the ids already added,
+	 *  in id order. Called holding appendLock.
+	 */
+	private void appendReady() {
+		
+		Map.Entry<Integer, EntryBlock> first;
+		while (isReady(first = pendingBlocks.firstEntry())) {
+			pendingBlocks.remove(first.getKey());
+			appendBlock(first.getValue());
+		}
+		
+	}
+	
+	/*
+	 *  Helper method to add the entries of a block to the store and wake its writer.
+	 *  A block that cannot be added fails on its own, without holding back later blocks.
+	 *  Called holding appendLock.
+	 */
+	private void appendBlock(EntryBlock block) {
+		
+		RuntimeException failure = null;
+		try {
+			if (closed && !block.isAbandoned()) {
+				throw new IllegalStateException("Competition " + id + " is closed to new entries.");
+			} else if (block.getEntries() != null) {
+				for (Entry e : block.getEntries()) {
+					append(e);
+				}
+			} else if (!block.isAbandoned()) {
+				int firstIndex = entryStore.size();
+				entryStore.addRange(block.getFirstEntryId(), block.getCount(),
+						block.getMemberId(), block.getBillId(), block.getMemberName());
+				noteIndex(block.getFirstEntryId(), firstIndex, block.getCount());
+			}
+		} catch (RuntimeException e) {
+			failure = e;
+		}
+		
+		if (block.getLastEntryId() > addedEntryIds) addedEntryIds = block.getLastEntryId();
+		if (failure == null && !block.isAbandoned() && addedBlocks != null) addedBlocks.add(block);
+		block.markAdded(failure);
+		
+	}
+	
+	/*
+	 *  Helper method to add an entry to the end of the store, noting its index.
+	 *  Called holding appendLock.
+	 */
+	private void append(Entry e) {
+		
+		entryStore.add(e);
+		noteIndex(e.getEntryId(), entryStore.size() - 1, 1);
+		
+	}
+	
+	/*
+	 *  Helper method to note the index of entries with consecutive ids, so they can be found by id.
+	 *  Entries with higher ids than any before them carry on the last run of ids, or start a new
+	 *  one if ids were skipped. Any other entry is displaced. Called holding appendLock,
+	 *  or while setting up.
+	 */
+	private void noteIndex(int firstEntryId, int firstIndex, int count) {
+		
+		if (firstEntryId <= maxEntryId) {
+			for (int i = 0; i < count; i ++) {
+				if (firstEntryId + i <= maxEntryId) {
+					displacedEntries.putIfAbsent(firstEntryId + i, firstIndex + i);
+				} else {
+					noteIndex(firstEntryId + i, firstIndex + i, count - i);
+					break;
+				}
+			}
+			return;
+		}
+		
+		if (runIndexOf(firstEntryId) != firstIndex) entryIdRuns.put(firstEntryId, firstEntryId - firstIndex);
+		maxEntryId = firstEntryId + count - 1;
+		
+	}
+	
+	/*
+	 *  Helper method to find the index an entry id has in the run of ids it falls in.
+	 *  @return index integer, which may be past the entries or hold another id.
+	 */
+	private int runIndexOf(int entryId) {
+		
+		Map.Entry<Integer, Integer> run = entryIdRuns.floorEntry(entryId);
+		if (run == null) return entryId - 1;
+		
+		return entryId - run.getValue();
+	}
+	
+	/*
+	 *  Helper method to let readers see the entries in the store, after entries were added.
+	 *  Entries added without a reservation move the next reserved id past their ids, and past
+	 *  the number of entries, so later reserved entries carry on after them. The ids passed over
+	 *  count as added once every earlier reserved id is. Called holding appendLock.
+	 */
+	private void published() {
+		
+		int size = entryStore.size();
+		int taken = Math.max(size, maxEntryId);
+		int reserved = reservedEntryIds.get();
+		while (reserved < taken) {
+			if (reservedEntryIds.compareAndSet(reserved, taken)) {
+				if (addedEntryIds == reserved) {
+					addedEntryIds = taken;
+				} else {
+					pendingBlocks.put(reserved + 1, new EntryBlock(reserved + 1, taken - reserved));
+				}
+				break;
+			}
+			reserved = reservedEntryIds.get();
+		}
+		prizesCounted = false;
+		noEntries = size;
+		
+	}
+	
+	/*
+	 *  Helper method to set up the transient state for adding and finding entries,
+	 *  from the entries already in the store.
+	 */
+	private void setUpEntries() {
+		
+		entryIdRuns = new ConcurrentSkipListMap<Integer, Integer>();
+		displacedEntries = new ConcurrentHashMap<Integer, Integer>();
+		maxEntryId = 0;
+		for (int i = 0; i < entryStore.size(); i ++) {
+			noteIndex(entryStore.getEntryId(i), i, 1);
+		}
+		
+		int taken = Math.max(entryStore.size(), maxEntryId);
+		reservedEntryIds = new AtomicInteger(taken);
+		pendingBlocks = new ConcurrentSkipListMap<Integer, EntryBlock>();
+		appendLock = new ReentrantLock();
+		addedEntryIds = taken;
+		noEntries = entryStore.size();
+		closed = !active;
+		addedBlocks = null;
+		
+	}
+	
+	/*
+	 *  Helper method to find the index of the first entry with an entryId.
+	 *  That is either the index of the id in its run of ids or a displaced entry, whichever comes first.
+	 *  @return index integer, -1 if no entry has the id.
+	 */
+	private int indexOfEntryId(int entryId) {
+		
+		int index = runIndexOf(entryId);
+		if (index < 0 || index >= noEntries || entryStore.getEntryId(index) != entryId) index = -1;
+		
+		Integer displaced = displacedEntries.get(entryId);
+		if (displaced != null && (index < 0 || displaced < index)) index = displaced;
+		
+		return index;
+	}
+	
+	/*
+	 *  Custom deserialization hook. Files saved before the EntryStore hold a plain entry list,
+	 *  which is kept in a list backed store. Runs of ids, displaced entry index and the state for adding
+	 *  entries are transient, so set them up once the entries have been read back from a saved file.
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		
+		in.defaultReadObject();
+		if (entryStore == null) {
+			entryStore = new EntryStore(entries != null ? entries : new ArrayList<Entry>());
+			entries = null;
+		}
+		
+		setUpEntries();
+
+		
+	}
 		
 }
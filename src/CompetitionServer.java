@@ -0,0 +1,412 @@
+/*
+ * Author: Damian Curran
+ */
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Local HTTP API over the competitions of a SimpleCompetitions object, so till software can
+ * create competitions, add entries from bills and draw winners while the console menu runs.
+ * Requests and responses are JSON:
+ *   GET  /competitions               Summary of every competition.
+ *   POST /competitions               Create a competition, {"name": "...", "type": "L" or "R", "storage": "M" or "F"}.
+ *   POST /competitions/{id}/entries  Add entries from a bill, {"billId": "...", "numbers": [[7 numbers], ...]}.
+ *   POST /competitions/{id}/draw     Draw winners.
+ * Errors are {"error": "..."}. The server only listens on the loopback address, and
+ * requests run on a fixed pool of threads.
+ * @author Name: Damian Curran
+ */
+public class CompetitionServer {
+
+	/**
+    * Path of the competitions resource.
+    */
+	public static final String PATH = "/competitions";
+
+	private final static int THREADS = 32;
+	private final static int BACKLOG = 1024;
+	private final static int MAX_BODY = 1 << 16;
+	private final static int STOP_DELAY = 1; //Seconds given to requests in progress when stopped.
+
+	//The JDK server writes response headers and body separately. Without TCP_NODELAY the body
+	//waits for the client's delayed ACK of the headers, about 40ms per request.
+	//Read by the JDK when its first server is created, so it is set before then unless already given.
+	static {
+		if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+			System.setProperty("sun.net.httpserver.nodelay", "true");
+		}
+	}
+
+	private SimpleCompetitions sc;
+	private HttpServer server;
+	private ExecutorService executor;
+
+	/**
+    * Constructor of the CompetitionServer class. Binds the port, but takes no requests until started.
+    * @param sc SimpleCompetitions object holding the competitions.
+    * @param port Port to listen on, integer. 0 picks a free port.
+    * @throws IOException if the port cannot be bound.
+    */
+	public CompetitionServer(SimpleCompetitions sc, int port) throws IOException {
+
+		this.sc = sc;
+		this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), BACKLOG);
+		this.executor = Executors.newFixedThreadPool(THREADS);
+		this.server.setExecutor(executor);
+		this.server.createContext(PATH, new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				CompetitionServer.this.handle(exchange);
+			}
+		});
+
+	}
+
+	/**
+    * Get the port the server listens on.
+    * @return Returns port integer.
+    */
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	/**
+    * Start taking requests.
+    */
+	public void start() {
+		server.start();
+	}
+
+	/**
+    * Stop taking requests, giving requests in progress a moment to finish.
+    */
+	public void stop() {
+
+		server.stop(STOP_DELAY);
+		executor.shutdown();
+
+	}
+
+	/*
+	 *  Helper method to route a request to its handler, and answer errors.
+	 */
+	private void handle(HttpExchange exchange) throws IOException {
+
+		try {
+
+			String method = exchange.getRequestMethod();
+			String rest = exchange.getRequestURI().getPath().substring(PATH.length());
+			if (rest.endsWith("/")) rest = rest.substring(0, rest.length() - 1);
+
+			if (rest.isEmpty()) {
+				if (method.equals("GET")) {
+					summary(exchange);
+				} else if (method.equals("POST")) {
+					create(exchange, readBody(exchange));
+				} else {
+					exchange.getResponseHeaders().set("Allow", "GET, POST");
+					error(exchange, 405, "Method not allowed.");
+				}
+				return;
+			}
+
+			String[] parts = rest.split("/");
+			if (parts.length != 3 || !parts[0].isEmpty()
+					|| !(parts[2].equals("entries") || parts[2].equals("draw"))) {
+				error(exchange, 404, "Not found.");
+				return;
+			}
+			if (!method.equals("POST")) {
+				exchange.getResponseHeaders().set("Allow", "POST");
+				error(exchange, 405, "Method not allowed.");
+				return;
+			}
+
+			Competition c = null;
+			try {
+				c = sc.getActiveCompetition(Integer.parseInt(parts[1]));
+			} catch (NumberFormatException e) {
+				//Not an id, answered as not found below.
+			}
+			if (c == null) {
+				error(exchange, 404, "There is no active competition with this id.");
+				return;
+			}
+
+			if (parts[2].equals("entries")) {
+				addEntries(exchange, c, readBody(exchange));
+			} else {
+				draw(exchange, c);
+			}
+
+		} catch (IllegalArgumentException e) {
+			error(exchange, 400, e.getMessage());
+		} catch (RuntimeException e) {
+			//Details go to the console only, not to the client
+			System.out.println("Error answering " + exchange.getRequestMethod() + " "
+					+ exchange.getRequestURI().getPath() + ": " + e);
+			error(exchange, 500, "Internal error.");
+		} finally {
+			exchange.close();
+		}
+
+	}
+
+	/*
+	 *  Helper method to answer GET /competitions with the summary of every competition.
+	 */
+	private void summary(HttpExchange exchange) throws IOException {
+
+		ArrayList<Competition> comps = sc.getCompetitions();
+		int noActive = 0;
+		for (Competition c : comps) {
+			if (c.getActive()) noActive++;
+		}
+
+		StringBuilder sb = new StringBuilder();
+		sb.append("{\"completed\":").append(comps.size() - noActive)
+				.append(",\"active\":").append(noActive)
+				.append(",\"competitions\":[");
+		for (int i = 0; i < comps.size(); i++) {
+			if (i > 0) sb.append(',');
+			appendCompetition(sb, comps.get(i));
+		}
+		sb.append("]}");
+
+		respond(exchange, 200, sb);
+
+	}
+
+	/*
+	 *  Helper method to answer POST /competitions by creating a competition.
+	 */
+	private void create(HttpExchange exchange, HashMap<String, Object> body) throws IOException {
+
+		String name = getString(body, "name", null);
+		String type = getString(body, "type", null);
+		String storage = getString(body, "storage", "M");
+		if (name == null || name.isEmpty()) throw new IllegalArgumentException("Competition name is required.");
+		if (type == null) throw new IllegalArgumentException("Competition type is required.");
+
+		boolean lucky;
+		if (type.equalsIgnoreCase("L") || type.equalsIgnoreCase("LuckyNumbers")) {
+			lucky = true;
+		} else if (type.equalsIgnoreCase("R") || type.equalsIgnoreCase("RandomPick")) {
+			lucky = false;
+		} else {
+			throw new IllegalArgumentException("Invalid competition type! Use L: LuckyNumbers or R: RandomPick.");
+		}
+
+		boolean inFile;
+		if (storage.equalsIgnoreCase("F")) {
+			inFile = true;
+		} else if (storage.equalsIgnoreCase("M")) {
+			inFile = false;
+		} else {
+			throw new IllegalArgumentException("Invalid entry storage! Use M: memory or F: file.");
+		}
+
+		Competition c = sc.createCompetition(name, lucky, inFile);
+		respond(exchange, 201, appendCompetition(new StringBuilder(), c));
+
+	}
+
+	/*
+	 *  Helper method to answer POST /competitions/{id}/entries by adding entries from a bill.
+	 *  Problems with the bill or numbers are answered as 422, as the request itself was valid.
+	 */
+	private void addEntries(HttpExchange exchange, Competition c, HashMap<String, Object> body) throws IOException {
+
+		String billId = getString(body, "billId", null);
+		if (billId == null) throw new IllegalArgumentException("Bill id is required.");
+
+		ArrayList<int[]> manualEntries = new ArrayList<int[]>();
+		Object numbers = body.get("numbers");
+		if (numbers != null) {
+			if (!(numbers instanceof ArrayList)) throw new IllegalArgumentException("Numbers must be an array of number sets.");
+			for (Object set : (ArrayList<?>) numbers) {
+				manualEntries.add(toNumbers(set));
+			}
+		}
+
+		ArrayList<Entry> added = new ArrayList<Entry>();
+		String problem = sc.addBillEntries(c, billId, manualEntries, added);
+		if (problem != null) {
+			error(exchange, 422, problem);
+			return;
+		}
+
+		StringBuilder sb = new StringBuilder();
+		sb.append("{\"competitionId\":").append(c.getId()).append(",\"billId\":");
+		JsonFormat.appendString(sb, billId).append(",\"entries\":[");
+		for (int i = 0; i < added.size(); i++) {
+			Entry e = added.get(i);
+			if (i > 0) sb.append(',');
+			sb.append("{\"entryId\":").append(e.getEntryId());
+			if (e.getNumberMask() != 0) {
+				appendNumbers(sb.append(",\"numbers\":"), e.getNumberMask());
+				sb.append(",\"auto\":").append(e instanceof AutoNumbersEntry);
+			}
+			sb.append('}');
+		}
+		sb.append("]}");
+
+		respond(exchange, 201, sb);
+
+	}
+
+	/*
+	 *  Helper method to answer POST /competitions/{id}/draw by drawing winners.
+	 *  A competition that cannot be drawn is answered as 409.
+	 */
+	private void draw(HttpExchange exchange, Competition c) throws IOException {
+
+		String problem = sc.drawCompetition(c);
+		if (problem != null) {
+			error(exchange, 409, problem);
+			return;
+		}
+
+		StringBuilder sb = new StringBuilder();
+		appendCompetition(sb.append("{\"competition\":"), c).append(",\"winners\":[");
+		boolean first = true;
+		for (int i = 0; i < c.getNoEntries(); i++) {
+			if (c.getEntryPrize(i) == 0) continue;
+			Entry e = c.getEntryFromIndex(i);
+			if (!first) sb.append(',');
+			first = false;
+			sb.append("{\"entryId\":").append(e.getEntryId()).append(",\"memberId\":");
+			JsonFormat.appendString(sb, e.getMemberId()).append(",\"memberName\":");
+			JsonFormat.appendString(sb, e.getMemberName()).append(",\"prize\":").append(e.getPrize()).append('}');
+		}
+		sb.append("]}");
+
+		respond(exchange, 200, sb);
+
+	}
+
+	/*
+	 *  Helper method to append a competition as a JSON object.
+	 *  Winning entries and prizes are only included once the competition is completed.
+	 */
+	private static StringBuilder appendCompetition(StringBuilder sb, Competition c) {
+
+		sb.append("{\"id\":").append(c.getId()).append(",\"name\":");
+		JsonFormat.appendString(sb, c.getName()).append(",\"type\":");
+		JsonFormat.appendString(sb, c.getType())
+				.append(",\"active\":").append(c.getActive())
+				.append(",\"entries\":").append(c.getNoEntries());
+		if (!c.getActive()) {
+			sb.append(",\"winningEntries\":").append(c.getNoWinningEntries())
+					.append(",\"totalPrizes\":").append(c.getTotalPrizes());
+		}
+		sb.append('}');
+
+		return sb;
+	}
+
+	/*
+	 *  Helper method to append the numbers of a number bitmask as a JSON array, in order.
+	 */
+	private static StringBuilder appendNumbers(StringBuilder sb, long mask) {
+
+		sb.append('[');
+		boolean first = true;
+		for (long m = mask; m != 0; m = m & (m - 1)) {
+			if (!first) sb.append(',');
+			first = false;
+			sb.append(Long.numberOfTrailingZeros(m));
+		}
+		sb.append(']');
+
+		return sb;
+	}
+
+	/*
+	 *  Helper method to read a JSON number set as an integer array.
+	 *  @throws IllegalArgumentException if the value is not an array of whole numbers.
+	 */
+	private static int[] toNumbers(Object set) {
+
+		if (!(set instanceof ArrayList)) throw new IllegalArgumentException("Numbers must be an array of number sets.");
+
+		ArrayList<?> values = (ArrayList<?>) set;
+		int[] numbers = new int[values.size()];
+		for (int i = 0; i < numbers.length; i++) {
+			Object value = values.get(i);
+			if (!(value instanceof Long) || (Long) value != ((Long) value).intValue()) {
+				throw new IllegalArgumentException("Numbers are expected.");
+			}
+			numbers[i] = ((Long) value).intValue();
+		}
+
+		return numbers;
+	}
+
+	/*
+	 *  Helper method to read an optional string member of a request body.
+	 *  @throws IllegalArgumentException if the member is present but not a string.
+	 */
+	private static String getString(HashMap<String, Object> body, String name, String defaultValue) {
+
+		Object value = body.get(name);
+		if (value == null) return defaultValue;
+		if (!(value instanceof String)) throw new IllegalArgumentException("'" + name + "' must be a string.");
+
+		return (String) value;
+	}
+
+	/*
+	 *  Helper method to read a request body as a JSON object.
+	 *  @throws IllegalArgumentException if the body is too large or not a JSON object.
+	 */
+	private static HashMap<String, Object> readBody(HttpExchange exchange) throws IOException {
+
+		byte[] bytes = exchange.getRequestBody().readNBytes(MAX_BODY + 1);
+		if (bytes.length > MAX_BODY) throw new IllegalArgumentException("Request body is too large.");
+
+		Object body = JsonFormat.parse(new String(bytes, StandardCharsets.UTF_8));
+		if (!(body instanceof HashMap)) throw new IllegalArgumentException("Request body must be a JSON object.");
+
+		@SuppressWarnings("unchecked")
+		HashMap<String, Object> object = (HashMap<String, Object>) body;
+		return object;
+	}
+
+	/*
+	 *  Helper method to answer an error as {"error": message}.
+	 */
+	private static void error(HttpExchange exchange, int status, String message) throws IOException {
+
+		StringBuilder sb = new StringBuilder("{\"error\":");
+		JsonFormat.appendString(sb, message).append('}');
+		respond(exchange, status, sb);
+
+	}
+
+	/*
+	 *  Helper method to send a JSON response.
+	 */
+	private static void respond(HttpExchange exchange, int status, StringBuilder json) throws IOException {
+
+		byte[] bytes = json.toString().getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+		exchange.sendResponseHeaders(status, bytes.length);
+		OutputStream out = exchange.getResponseBody();
+		out.write(bytes);
+		out.close();
+
+	}
+
+}
@@ -10,6 +10,8 @@ import java.io.Serializable;
  */
 public class DataFormatException extends Exception implements Serializable {
 
+	private static final long serialVersionUID = 4076519540617372372L;
+
 	/**
     * Constructor of the DataFormatException class.
     */
@@ -25,4 +27,13 @@ public class DataFormatException extends Exception implements Serializable {
 		super("Error in " + type + " data formatting.");
 	}
 
+	/**
+    * Overloaded constructor of the DataFormatException class.
+    * @param type String indicating type of file that caused the exception.
+    * @param line Line number of the file where the error was found, int.
+    */
+	public DataFormatException(String type, int line){
+		super("Error in " + type + " data formatting at line " + line + ".");
+	}
+
 }
\ No newline at end of file
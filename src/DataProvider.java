@@ -2,12 +2,29 @@
  * Author: Damian Curran
  */
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.RandomAccessFile;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.Scanner;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * DataProvider object used to open files and provide data to main program.
@@ -15,9 +32,28 @@ import java.util.Scanner;
  */
 public class DataProvider implements Serializable {
 
+	private static final long serialVersionUID = -5979525202488026901L;
+	private static final int MAP_WINDOW = 1 << 30;
+	private static final int JOURNAL_ENTRY_SIZE = 7;
+	private static final int COMPACT_RATIO = 16;
+	private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8};
+
+	private static final long COLUMNAR_THRESHOLD = 64L << 20;
+
 	private ArrayList<Member> members;
-	private ArrayList<Bill> bills;	
+	private ArrayList<Bill> bills; //Only read from files saved before bill stores, see readObject.
 	private String billFileName;
+	private BillStore billStore;
+	
+	//Member id to list slot index. Not serialized, rebuilt after load (see readObject).
+	private transient HashMap<String, Integer> memberIndex;
+	
+	//Used flag of every bill slot, one bit each, so a bill can be claimed with a single
+	//compare-and-set. Bills claimed since the last save are only marked used in the bill store
+	//when saved. Bits of bills updated since the last save are set in dirtyBills.
+	//Not serialized, set up after load from the bill store (see setUpBillBits).
+	private transient AtomicLongArray usedBills;
+	private transient AtomicLongArray dirtyBills;
 			
 	/**
     * Constructor of the DataProvider class.
@@ -28,20 +64,40 @@ public class DataProvider implements Serializable {
     */
 	public DataProvider (String memberFile, String billFile) throws DataAccessException, DataFormatException {
 		
+		//Bill files large enough to strain the heap as objects use the columnar store.
+		this(memberFile, billFile, new File(billFile).length() > COLUMNAR_THRESHOLD);
+		
+	}
+	
+	/**
+    * Overloaded constructor of the DataProvider class, choosing the bill store.
+    * The columnar store requires every bill and member id in the bill file to be a 6-digit number.
+    * @param memberFile The filename of the member file, String.
+    * @param billFile The filename of the bill file, String.
+    * @param columnar Boolean, true to hold bills in a ColumnarBillStore rather than as Bill objects.
+    * @throws DataAccessException Exception thrown when file cannot be accessed.
+    * @throws DataFormatException Exception thrown when file contents are improperly formatted and cannot be read.
+    */
+	public DataProvider (String memberFile, String billFile, boolean columnar)
+		throws DataAccessException, DataFormatException {
+		
 		this.members = new ArrayList<Member>();
-		this.bills = new ArrayList<Bill>();
+		this.bills = null;
+		this.billStore = columnar ? new ColumnarBillStore() : new BillStore();
 		this.billFileName = billFile;
 		
-		//Initialise empty array list of each line of the file.
-		ArrayList<String> fileData = null;
+		//Try open the member file and stream it into the member list.
+		loadMembers(memberFile);
+		
+		//Try open the bill file and parse it into the bill list.
+		loadBills(billFile);
 		
-		//Try open the member file and create member list from the file data.
-		fileData = readIn(memberFile, "member");
-		createMemberList(fileData);	
+		buildIndexes();
 		
-		//Try open the bill file and create bill list from the file data.
-		fileData = readIn(billFile, "bill");
-		createBillList(fileData);
+		//Replay bills marked used since the bill file was last rewritten.
+		applyJournal();
+		
+		setUpBillBits();
 		
 	}
 		
@@ -50,24 +106,29 @@ public class DataProvider implements Serializable {
     * @return Returns id integer.
     */
 	public int getBillSize() {
-		return bills.size();
+		return billStore.size();
 	}
 	
 	/**
 	* Get bill object based on billId
 	* @param billId String billId.
-	* @return Returns Bill object for the given billId
+	* @return Returns Bill object for the given billId, marked used if claimed and not released.
+	* A bill claimed or released since it was stored is returned as a copy,
+	* so a Bill read before the claim keeps its entries.
 	*/
 	public Bill getBill(String billId) {
 	
-		int size = bills.size();
-	
-		for (int i = 0; i < size; i ++) {
-			String id = bills.get(i).getBillId();
-			if (id.equals(billId)) return bills.get(i);
+		int index = getBillIndex(billId);
+		if (index != -1) {
+			Bill b = billStore.getBill(index);
+			boolean used = isSet(usedBills, index);
+			if (b.getUsed() != used) {
+				b = Bill.withCents(b.getBillId(), b.getMemberId(), b.getAmountCents(), used);
+			}
+			return b;
 		}
 	
-		return bills.get(0); //Default
+		return billStore.getBill(0); //Default
 	
 	}
 
@@ -78,14 +139,7 @@ public class DataProvider implements Serializable {
 	*/
 	public int getBillIndex(String billId) {
 	
-		int size = bills.size();
-	
-		for (int i = 0; i < size; i ++) {
-			String id = bills.get(i).getBillId();
-			if (id.equals(billId)) return i;
-		}
-	
-		return -1;
+		return billStore.indexOf(billId);
 	}
 
 	/**
@@ -95,12 +149,8 @@ public class DataProvider implements Serializable {
     */
 	public String getMemberName(String memberId) {
 		
-		int size = members.size();
-		
-		for (int i = 0; i < size; i ++) {
-			String currentId = members.get(i).getMemberId();
-			if (currentId.equals(memberId)) return members.get(i).getName();
-		}
+		Integer index = memberIndex.get(memberId);
+		if (index != null) return members.get(index).getName();
 
 		return "";//Default
 		
@@ -115,14 +165,7 @@ public class DataProvider implements Serializable {
     */
 	public boolean billExists(String billId) {
 		
-		int size = bills.size();
-		
-		for (int i = 0; i < size; i ++) {
-			String id = bills.get(i).getBillId();
-			if (id.equals(billId)) return true;
-		}
-		
-		return false;
+		return billStore.indexOf(billId) != -1;
 	}
 
 	/**
@@ -134,140 +177,637 @@ public class DataProvider implements Serializable {
     */
 	public boolean validMember(String memberId) {
 		
-		int size = members.size();
+		return memberIndex.containsKey(memberId);
+
+	}
+	
+	/**
+    * Claim a bill for new entries, marking it used. Safe to call from any thread.
+    * The claim is a single compare-and-set of the bill's used bit, so however many
+    * threads claim the same bill at once, exactly one of them succeeds.
+    * @param billId String billId.
+    * @return Returns boolean, true if this call claimed the bill,
+    * false if the bill does not exist or is already used.
+    */
+	public boolean claimBill(String billId) {
 		
-		for (int i = 0; i < size; i ++) {
-			
-			String id = members.get(i).getMemberId();
-			if (id.equals(memberId)) return true;
-		}
+		int index = getBillIndex(billId);
+		if (index == -1 || !setBit(usedBills, index)) return false;
+		
+		setBit(dirtyBills, index);
+		return true;
+	}
+	
+	/**
+    * Release a bill claimed with claimBill when no entries were added from it, marking it unused.
+    * @param billId String billId.
+    */
+	public void releaseBill(String billId) {
+		
+		int index = getBillIndex(billId);
+		if (index == -1) return;
+		
+		clearBit(usedBills, index);
+		setBit(dirtyBills, index);
 		
-		return false;
-
 	}
 	
 	/**
     * Update bills into DataProvider.
+    * Not atomic with other updates to the same bill, use claimBill to mark a bill used.
+    * An unused bill never replaces a claimed one, as it may have been read before the claim.
+    * Use releaseBill to mark a claimed bill unused.
     * @param b Bill object to be updated.
+    * @return Returns boolean, false if the bill was left unchanged as it is claimed and b is unused.
     */
-	public void updateBills(Bill b) {
+	public boolean updateBills(Bill b) {
 
 		int index = getBillIndex(b.getBillId());
-		bills.set(index, b);
-
+		if (!b.getUsed() && isSet(usedBills, index)) return false;
+		
+		billStore.set(index, b);
+		if (b.getUsed()) setBit(usedBills, index);
+		setBit(dirtyBills, index);
+		
+		//Slot is unchanged, so the bill index stays valid without rebuilding.
+		return true;
 	}
 	
 	/**
-    * Write bills object back to bills text file.
+    * Save bill changes made this session.
+    * Bills marked used since the last save are appended to the used bill journal, so the
+    * work done scales with the number of changes. Once the journal grows past a fraction
+    * of the bill file, the bill file is rewritten in full and the journal removed.
+    * The bill file itself is only ever replaced by an atomic rename, never truncated.
+    * Bills claimed while saving are left for the next save.
     * @throws Exception Exception thrown if problem encountered during file write.
     */
 	public void saveBillsToFile() throws Exception {
 
-        PrintWriter outputStream = null;
-        outputStream = new PrintWriter(new FileOutputStream(billFileName));
-
-		for(int i = 0; i < this.getBillSize(); i++) {
+		BitSet dirty = takeDirtyBills();
+		if (dirty.isEmpty()) return;
+		
+		try {
 			
-			Bill b = bills.get(i);
+			//Mark claimed bills used in the bill store, before they are written from it.
+			for (int i = dirty.nextSetBit(0); i >= 0; i = dirty.nextSetBit(i + 1)) {
+				billStore.setUsed(i, isSet(usedBills, i));
+			}
 			
-			String billId = b.getBillId();
-			String memberId = b.getMemberId();
-			String amount = b.getAmountStringNoFormat();
-			String used = b.getUsedString();
-			outputStream.print(billId + "," + memberId + "," + amount + "," + used +"\n");
-
+			File journal = new File(getJournalFileName());
+			long journalSize = journal.length() + (long) dirty.cardinality() * JOURNAL_ENTRY_SIZE;
+			
+			if (journalSize > new File(billFileName).length() / COMPACT_RATIO) {
+				compactBillFile();
+			} else {
+				appendToJournal(dirty);
+			}
+			
+		} catch (Exception e) {
+			//Keep the bills dirty, so they are written by the next save.
+			for (int i = dirty.nextSetBit(0); i >= 0; i = dirty.nextSetBit(i + 1)) {
+				setBit(dirtyBills, i);
+			}
+			throw e;
+		}
+		
+	}
+	
+	/*
+	 *  Helper method to append the ids of the dirty bills to the used bill journal.
+	 *  The journal is synced to disk before returning.
+	 *  @param dirty Slots of the bills to append, if used.
+	 *  @throws IOException if the journal cannot be written.
+	 */
+	private void appendToJournal(BitSet dirty) throws IOException {
+		
+		File journal = new File(getJournalFileName());
+		StringBuilder sb = new StringBuilder(dirty.cardinality() * JOURNAL_ENTRY_SIZE + 1);
+		
+		//Finish off a line torn by an earlier crash, so it is not joined to the new entries.
+		if (endsTorn(journal)) sb.append('\n');
+		
+		for (int i = dirty.nextSetBit(0); i >= 0; i = dirty.nextSetBit(i + 1)) {
+			Bill b = billStore.getBill(i);
+			if (b.getUsed()) sb.append(b.getBillId()).append('\n');
 		}
 		
-		outputStream.close();
+		FileOutputStream outputStream = new FileOutputStream(journal, true);
+		try {
+			outputStream.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+			outputStream.getFD().sync();
+		} finally {
+			outputStream.close();
+		}
 		
 	}
-
+	
 	/*
-	 *  Helper method for constructor.
-	 *  To read file into ArrayList (called from Constructor)
-	 *  @param filename Filename string to be read in
-	 *  @param type Type string indicating if bill or member, for purposes of exception message.
-	 *  @return Returns string array list of file data as read
-	 *  @throws DataAccessException if file cannot be accessed
+	 *  Helper method to rewrite the whole bill file, folding in the journal.
+	 *  Writes to a temporary file, syncs it and renames it over the bill file,
+	 *  so a crash leaves either the old or the new file in place.
+	 *  @throws IOException if the bill file cannot be written.
 	 */
-	private ArrayList<String> readIn(String filename, String type)
-		throws DataAccessException {
+	private void compactBillFile() throws IOException {
 		
-		ArrayList<String> fileData = new ArrayList<String>();		
+		File temp = new File(billFileName + ".tmp");
+		FileOutputStream fileStream = new FileOutputStream(temp);
 		
 		try {
+		
+			PrintWriter outputStream = new PrintWriter(new BufferedWriter(
+					new OutputStreamWriter(fileStream, StandardCharsets.UTF_8), 1 << 16));
+			
+			for(int i = 0; i < this.getBillSize(); i++) {
+				
+				Bill b = billStore.getBill(i);
+				
+				String billId = b.getBillId();
+				String memberId = b.getMemberId();
+				String amount = b.getAmountStringNoFormat();
+				String used = b.getUsedString();
+				outputStream.print(billId + "," + memberId + "," + amount + "," + used +"\n");
 	
-			File file = new File(filename);
-			Scanner in = new Scanner(file);
+			}
 			
-			while (in.hasNextLine()) {
-				fileData.add(in.nextLine());
+			outputStream.flush();
+			if (outputStream.checkError()) throw new IOException("Error writing " + temp.getName());
+			fileStream.getFD().sync();
+		
+		} finally {
+			fileStream.close();
+		}
+		
+		Files.move(temp.toPath(), Paths.get(billFileName),
+				StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		
+		//Every journal entry is now in the bill file. Replaying it again would be harmless.
+		Files.deleteIfExists(Paths.get(getJournalFileName()));
+		
+	}
+	
+	/*
+	 *  Helper method for constructor to replay the used bill journal over the loaded bills.
+	 *  A last line without a line break was torn by a crash mid-append and is skipped.
+	 *  Ids no longer in the bill file are ignored.
+	 *  @throws DataAccessException if the journal cannot be read.
+	 */
+	private void applyJournal() throws DataAccessException {
+		
+		File journal = new File(getJournalFileName());
+		if (!journal.exists()) return;
+		
+		BufferedReader in = openFile(journal.getPath(), "bill journal");
+		
+		try {
+			
+			boolean torn = endsTorn(journal);
+			String line = in.readLine();
+			while (line != null) {
+				
+				String next = in.readLine();
+				if (next == null && torn) break;
+				
+				int index = getBillIndex(line);
+				if (index != -1) billStore.setUsed(index, true);
+				line = next;
+				
 			}
 			
-			in.close();
+		} catch (IOException e) {
+			throw new DataAccessException("bill journal");
+		} finally {
+			closeFile(in);
+		}
+		
+	}
 	
-		} catch (Exception e) {throw new DataAccessException(type);}
-					
-		return fileData;
+	/*
+	 *  Helper method to check if a journal file ends part way through a line.
+	 *  @return Returns true if the file is not empty and its last byte is not a line break.
+	 */
+	private static boolean endsTorn(File journal) throws IOException {
+		
+		if (!journal.exists() || journal.length() == 0) return false;
+		
+		RandomAccessFile file = new RandomAccessFile(journal, "r");
+		try {
+			file.seek(file.length() - 1);
+			return file.read() != '\n';
+		} finally {
+			file.close();
+		}
 		
 	}
+	
+	/*
+	 *  Helper method to set up the used and dirty bits of the bills, once the bill store
+	 *  holds every bill. Bills are never added after load, so the bits are sized once.
+	 */
+	private void setUpBillBits() {
+		
+		int words = (billStore.size() + 63) >>> 6;
+		usedBills = new AtomicLongArray(words);
+		dirtyBills = new AtomicLongArray(words);
+		for (int i = 0; i < billStore.size(); i ++) {
+			if (billStore.getUsed(i)) setBit(usedBills, i);
+		}
+		
+	}
+	
+	/*
+	 *  Helper method to take the dirty bits of the bills, clearing them word by word,
+	 *  so a bill claimed at the same time is either taken now or left for the next save.
+	 *  @return Returns slots of the bills updated since the last save.
+	 */
+	private BitSet takeDirtyBills() {
+		
+		long[] words = new long[dirtyBills.length()];
+		for (int w = 0; w < words.length; w ++) {
+			if (dirtyBills.get(w) != 0) words[w] = dirtyBills.getAndSet(w, 0);
+		}
+		
+		return BitSet.valueOf(words);
+	}
+	
+	/*
+	 *  Helper method to set the bit of a slot, lock free.
+	 *  Retries only while other bits of the same word change underneath it.
+	 *  @return Returns true if this call set the bit, false if it was already set.
+	 */
+	private static boolean setBit(AtomicLongArray bits, int slot) {
+		
+		int word = slot >>> 6;
+		long bit = 1L << slot;
+		long old = bits.get(word);
+		while ((old & bit) == 0) {
+			if (bits.compareAndSet(word, old, old | bit)) return true;
+			old = bits.get(word);
+		}
+		
+		return false;
+	}
+	
+	/*
+	 *  Helper method to clear the bit of a slot, lock free.
+	 */
+	private static void clearBit(AtomicLongArray bits, int slot) {
+		
+		int word = slot >>> 6;
+		long bit = 1L << slot;
+		long old = bits.get(word);
+		while ((old & bit) != 0 && !bits.compareAndSet(word, old, old & ~bit)) {
+			old = bits.get(word);
+		}
+		
+	}
+	
+	/*
+	 *  Helper method to check the bit of a slot.
+	 */
+	private static boolean isSet(AtomicLongArray bits, int slot) {
+		return (bits.get(slot >>> 6) & (1L << slot)) != 0;
+	}
+	
+	/*
+	 *  Helper method for the journal file name, kept next to the bill file.
+	 */
+	private String getJournalFileName() {
+		return billFileName + ".used";
+	}
 
 	/*
-	 *  Helper method for constructor to create member list from file data.
-	 *  @param fileData Array list of strings from the raw file data
-	 *  @throws DataFormatException if raw data is not properly formatted.
+	 *  Helper method to build the id to slot index for members.
+	 *  Called once after load. Where an id is repeated, the first slot is kept,
+	 *  matching the first-match behaviour of a linear scan.
+	 *  The bill store keeps its own index.
 	 */
-	private void createMemberList(ArrayList<String> fileData)
-		throws DataFormatException {
-				
-		//Taking each line of the ArrayList String (previously read from the file):
-		int size = fileData.size();
+	private void buildIndexes() {
 		
-		try {
+		memberIndex = new HashMap<String, Integer>(members.size() * 2);
+		for (int i = 0; i < members.size(); i ++) {
+			memberIndex.putIfAbsent(members.get(i).getMemberId(), i);
+		}
 		
-			for (int i = 0; i < size; i ++) {
+	}
+	
+	/*
+	 *  Custom deserialization hook. Indexes are transient, so rebuild them
+	 *  once the member list has been read back from a saved file.
+	 *  Files saved before bill stores hold a plain bill list, which is moved into a store.
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		if (billStore == null) {
+			billStore = new BillStore(bills);
+			bills = null;
+		}
+		buildIndexes();
+		setUpBillBits();
+	}
+
+	/*
+	 *  Helper method for constructor to stream the member file into the member list.
+	 *  Lines are read and split one at a time, so no copy of the whole file is held.
+	 *  @param filename Filename string to be read in
+	 *  @throws DataAccessException if file cannot be accessed
+	 *  @throws DataFormatException if a line is not properly formatted.
+	 */
+	private void loadMembers(String filename)
+		throws DataAccessException, DataFormatException {
+		
+		BufferedReader in = openFile(filename, "member");
+		String[] fields = new String[3];
+		int lineNo = 0;
+		
+		try {
+			
+			String line;
+			while ((line = in.readLine()) != null) {
 				
-				String[] nextMember = fileData.get(i).split(",");
-				String id = nextMember[0];
-				String n = nextMember[1];
-				String add = nextMember[2];
+				lineNo++;
+				if (splitLine(line, fields) < 3) throw new DataFormatException("member", lineNo);
 				
-				Member m = new Member (id, n, add);
+				Member m = new Member (fields[0], fields[1], fields[2]);
 				members.add(m);
-							
+				
 			}
 			
-		} catch (Exception e) {throw new DataFormatException("member");}
+		} catch (IOException e) {
+			throw new DataAccessException("member");
+		} finally {
+			closeFile(in);
+		}
 		
 	}
 
 	/*
-	 *  Helper method for constructor to create bill list from file data.
-	 *  @param fileData Array list of strings from the raw file data
-	 *  @throws DataFormatException if raw data is not properly formatted.
+	 *  Helper method for constructor to parse the bill file into the bill list.
+	 *  The file is memory mapped and each field is parsed straight from the mapped bytes,
+	 *  so no line Strings or split arrays are created. Files larger than one map window
+	 *  are mapped in windows cut at line boundaries.
+	 *  @param filename Filename string to be read in
+	 *  @throws DataAccessException if file cannot be accessed
+	 *  @throws DataFormatException if a line is not properly formatted.
 	 */
-	private void createBillList(ArrayList<String> fileData)
-		throws DataFormatException {
-				
-		//Taking each line of the ArrayList String (previously read from the file):
-		int size = fileData.size();
+	private void loadBills(String filename)
+		throws DataAccessException, DataFormatException {
 		
-		try {
+		FileChannel channel = null;
 		
-			for (int i = 0; i < size; i ++) {
+		try {
+			
+			channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+			long size = channel.size();
+			long position = 0;
+			int lineNo = 0;
+			
+			while (position < size) {
 				
-				String[] nextBill = fileData.get(i).split(",");
-				String bid = nextBill[0];
-				String mid = nextBill[1];
-				float amount = Float.parseFloat(nextBill[2]);
-				boolean used = Boolean.parseBoolean(nextBill[3]);
+				int length = (int) Math.min(MAP_WINDOW, size - position);
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
 				
-				Bill b = new Bill (bid, mid, amount, used);
-				bills.add(b);
+				//Cut window back to the end of its last complete line, unless it is the last window.
+				if (position + length < size) {
+					while (length > 0 && buffer.get(length - 1) != '\n') length--;
+					if (length == 0) throw new DataFormatException("bill", lineNo + 1);
+				}
 				
+				lineNo = parseBills(buffer, length, lineNo);
+				position = position + length;
+				
+			}
+			
+		} catch (IOException e) {
+			throw new DataAccessException("bill");
+		} catch (RuntimeException e) {
+			throw new DataAccessException("bill");
+		} finally {
+			try {
+				if (channel != null) channel.close();
+			} catch (IOException e) {
+				//Nothing left to read, safe to ignore.
+			}
+		}
+		
+	}
+	
+	/*
+	 *  Helper method to parse the bill lines in one mapped window of the bill file.
+	 *  @param buffer Mapped bytes of the window.
+	 *  @param limit Number of bytes of the window to parse, ends on a line boundary.
+	 *  @param lineNo Number of lines parsed before this window, for exception messages.
+	 *  @return Returns number of lines parsed including this window.
+	 *  @throws DataFormatException if a line is not properly formatted.
+	 */
+	private int parseBills(ByteBuffer buffer, int limit, int lineNo)
+		throws DataFormatException {
+		
+		byte[] field = new byte[64];
+		int start = 0;
+		
+		while (start < limit) {
+			
+			lineNo++;
+			
+			//Find end of line, dropping any carriage return.
+			int next = start;
+			while (next < limit && buffer.get(next) != '\n') next++;
+			int end = next;
+			if (end > start && buffer.get(end - 1) == '\r') end--;
+			
+			//Find the three commas separating the four bill fields.
+			int c1 = indexOfComma(buffer, start, end);
+			int c2 = indexOfComma(buffer, c1 + 1, end);
+			int c3 = indexOfComma(buffer, c2 + 1, end);
+			if (c3 >= end) throw new DataFormatException("bill", lineNo);
+			int c4 = indexOfComma(buffer, c3 + 1, end);
+			
+			long cents = parseCents(buffer, c2 + 1, c3, field, lineNo);
+			boolean used = isTrue(buffer, c3 + 1, c4);
+			
+			//Numeric ids go straight into a store that keeps them as ints, no Strings needed.
+			int bidNumber = parseId(buffer, start, c1);
+			int midNumber = c2 == c1 + 1 ? -1 : parseId(buffer, c1 + 1, c2);
+			if (bidNumber >= 0 && (midNumber >= 0 || c2 == c1 + 1)
+					&& billStore.addNumeric(bidNumber, midNumber, cents, used)) {
+				start = next + 1;
+				continue;
+			}
+			
+			String bid = decodeField(buffer, start, c1, field);
+			String mid = decodeField(buffer, c1 + 1, c2, field);
+			
+			Bill b = Bill.withCents(bid, mid, cents, used);
+			try {
+				billStore.add(b);
+			} catch (IllegalArgumentException e) {
+				throw new DataFormatException("bill", lineNo);
+			}
+			
+			start = next + 1;
+			
+		}
+		
+		return lineNo;
+	}
+	
+	/*
+	 *  Helper method to find the next comma in a range of the buffer.
+	 *  @return Returns index of the comma, or end if there is none.
+	 */
+	private static int indexOfComma(ByteBuffer buffer, int from, int end) {
+		
+		int i = from;
+		while (i < end && buffer.get(i) != ',') i++;
+		return i;
+	}
+	
+	/*
+	 *  Helper method to parse a 6-digit id field of the buffer.
+	 *  @return Returns id integer, -1 if the field is not exactly 6 digits.
+	 */
+	private static int parseId(ByteBuffer buffer, int from, int to) {
+		
+		if (to - from != 6) return -1;
+		
+		int value = 0;
+		for (int i = from; i < to; i++) {
+			byte c = buffer.get(i);
+			if (c < '0' || c > '9') return -1;
+			value = value * 10 + (c - '0');
+		}
+		
+		return value;
+	}
+	
+	/*
+	 *  Helper method to decode a field of the buffer as a String.
+	 *  @param field Scratch array for the field bytes, used if large enough.
+	 */
+	private static String decodeField(ByteBuffer buffer, int from, int to, byte[] field) {
+		
+		int length = to - from;
+		byte[] bytes = length <= field.length ? field : new byte[length];
+		buffer.get(from, bytes, 0, length);
+		return new String(bytes, 0, length, StandardCharsets.UTF_8);
+	}
+	
+	/*
+	 *  Helper method to parse a bill amount in cents from the buffer.
+	 *  Plain decimals with up to 2 decimal places, such as "300.5", are exact cents.
+	 *  Longer plain decimals are turned into a float from the digits directly, exact to
+	 *  Float.parseFloat: the mantissa and power of ten are exact doubles, so the division is
+	 *  correctly rounded, and with at most 8 decimal places no decimal can sit close enough
+	 *  to a float rounding midpoint for the double to float step to differ. The float is then
+	 *  converted to cents as the Bill float constructor would.
+	 *  Anything else (signs, exponents, whitespace) falls back to Float.parseFloat.
+	 *  @throws DataFormatException if the amount is not a number.
+	 */
+	private static long parseCents(ByteBuffer buffer, int from, int to, byte[] field, int lineNo)
+		throws DataFormatException {
+		
+		long mantissa = 0;
+		int digits = 0;
+		int decimals = -1;
+		boolean plain = to > from;
+		
+		for (int i = from; i < to && plain; i++) {
+			byte c = buffer.get(i);
+			if (c >= '0' && c <= '9') {
+				mantissa = mantissa * 10 + (c - '0');
+				digits++;
+				if (decimals >= 0) decimals++;
+			} else if (c == '.' && decimals < 0) {
+				decimals = 0;
+			} else {
+				plain = false;
+			}
+		}
+		
+		try {
+			
+			if (plain && digits > 0 && digits <= 15 && decimals <= 2) {
+				return decimals == 2 ? mantissa : decimals == 1 ? mantissa * 10 : mantissa * 100;
+			}
+			
+			if (plain && digits > 0 && digits <= 15 && decimals <= 8) {
+				return Bill.toCents((float) (mantissa / POWERS_OF_TEN[decimals]));
 			}
 			
-		} catch (Exception e) {throw new DataFormatException("bill");}
+			return Bill.toCents(Float.parseFloat(decodeField(buffer, from, to, field)));
+			
+		} catch (IllegalArgumentException e) {
+			//Includes NumberFormatException.
+			throw new DataFormatException("bill", lineNo);
+		}
+	}
+	
+	/*
+	 *  Helper method to read a used flag from the buffer, same as Boolean.parseBoolean.
+	 *  @return Returns true if the field is "true", ignoring case.
+	 */
+	private static boolean isTrue(ByteBuffer buffer, int from, int to) {
+		
+		if (to - from != 4) return false;
+		
+		return (buffer.get(from) | 0x20) == 't'
+				&& (buffer.get(from + 1) | 0x20) == 'r'
+				&& (buffer.get(from + 2) | 0x20) == 'u'
+				&& (buffer.get(from + 3) | 0x20) == 'e';
+	}
+	
+	/*
+	 *  Helper method to split a comma separated line into the given field array.
+	 *  Plain indexOf scan, no regex. Fields past the length of the array are ignored.
+	 *  @param line Line of the file.
+	 *  @param fields Array to fill with the fields of the line.
+	 *  @return Returns number of fields found, up to the length of the array.
+	 */
+	private static int splitLine(String line, String[] fields) {
+		
+		int start = 0;
+		int count = 0;
+		
+		while (count < fields.length) {
+			int end = line.indexOf(',', start);
+			if (end < 0) {
+				fields[count++] = line.substring(start);
+				break;
+			}
+			fields[count++] = line.substring(start, end);
+			start = end + 1;
+		}
+		
+		return count;
+	}
+	
+	/*
+	 *  Helper method to open a file for buffered reading.
+	 *  @param filename Filename string to be opened.
+	 *  @param type Type string indicating if bill or member, for purposes of exception message.
+	 *  @return Returns reader for the file.
+	 *  @throws DataAccessException if file cannot be accessed
+	 */
+	private static BufferedReader openFile(String filename, String type)
+		throws DataAccessException {
+		
+		try {
+			return new BufferedReader(new FileReader(filename), 1 << 16);
+		} catch (Exception e) {throw new DataAccessException(type);}
+		
+	}
+	
+	/*
+	 *  Helper method to close a reader, ignoring errors on close.
+	 */
+	private static void closeFile(BufferedReader in) {
+		
+		try {
+			in.close();
+		} catch (IOException e) {
+			//Nothing left to read, safe to ignore.
+		}
 		
 	}
 	
@@ -0,0 +1,313 @@
+/*
+ * Author: Damian Curran
+ */
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Runnable benchmark of drawing winners in large Lucky Numbers competitions.
+ * For each size, builds a competition in testing mode with automatic entries from members
+ * chosen at random (the same for each size), and times drawWinners. The draw is also made as
+ * LuckyNumbersCompetition made it before it kept a map of members, with a list of unique
+ * members built with contains, and a search of that list for each winning entry.
+ * Both must award the same prizes to the same entries. The list draw grows with entries
+ * times members, so it is only made up to REFERENCE_LIMIT of them.
+ * Then times counting the matches of MATCH_ENTRIES entries with the winning numbers, as bitmasks
+ * with NumbersEntry.noMatching, and by comparing every number with every winning number in
+ * int arrays, as entries held them before. Both must count the same matches.
+ * Last, scores the entries of the PARALLEL_SIZES competitions with LuckyNumbersDrawTask, in order
+ * and split across the common ForkJoinPool, which must find the same winners. The pool has one
+ * thread less than the processors, so on one processor run with eg -XX:ActiveProcessorCount=4.
+ * Usage: java DrawBenchmark [entries/members ...], eg 10000/1000 100000/10000 1000000/100000
+ * Prints one line per case, and exits with status 1 if any case fails.
+ * @author Name: Damian Curran
+ */
+public class DrawBenchmark {
+
+	private final static long REFERENCE_LIMIT = 4000000000L; //Entries times members.
+	private final static int NUMBER_COUNT = 7;
+	private final static int MATCH_ENTRIES = 1000000;
+	private final static int MATCH_ROUNDS = 5; //Fastest round is reported, the first warms up.
+	private final static String[] PARALLEL_SIZES = {"1000000/100", "1000000/100000", "300000/5000"};
+	private final static int PARALLEL_ROUNDS = 3;
+	private final static int[] PRIZES = {0, 0, 50, 100, 500, 1000, 5000, 50000};
+
+	private int failures = 0;
+
+	/**
+    * Main program, runs every case for each size.
+    * @param args Sizes as number of entries and number of members, separated by '/'.
+    */
+	public static void main(String[] args) {
+
+		if (args.length == 0) {
+			args = new String[] {"10000/1000", "100000/1000", "100000/10000", "200000/20000", "1000000/100000"};
+		}
+
+		DrawBenchmark check = new DrawBenchmark();
+		try {
+			for (String size : args) {
+				String[] parts = size.split("/");
+				check.checkDraw(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+			}
+			check.checkMatch(MATCH_ENTRIES);
+			for (String size : PARALLEL_SIZES) {
+				String[] parts = size.split("/");
+				check.checkParallel(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+			}
+		} catch (Exception e) {
+			System.out.println("FAIL could not run: " + e);
+			check.failures++;
+		}
+
+		if (check.failures > 0) {
+			System.out.println(check.failures + " case(s) failed.");
+			System.exit(1);
+		}
+		System.out.println("All cases passed.");
+
+	}
+
+	/*
+	 *  Helper logic to time drawWinners, and check its prizes against the list draw.
+	 */
+	private void checkDraw(int entries, int members) {
+
+		Competition c = competition(entries, members);
+		boolean reference = (long) entries * members <= REFERENCE_LIMIT;
+
+		long listNanos = 0;
+		int[] expected = null;
+		if (reference) {
+			long start = System.nanoTime();
+			expected = listDraw(c);
+			listNanos = System.nanoTime() - start;
+		}
+
+		long start = System.nanoTime();
+		c.drawWinners();
+		long mapNanos = System.nanoTime() - start;
+
+		String problem = null;
+		for (int i = 0; i < entries && expected != null && problem == null; i ++) {
+			if (c.getEntryPrize(i) != expected[i]) {
+				problem = "entry " + c.getEntryId(i) + " won " + c.getEntryPrize(i) + ", the list draw gave " + expected[i];
+			}
+		}
+
+		String name = "draw, " + entries + " entries from " + members + " members";
+		String result = "map " + (mapNanos / 1000000) + " ms, list "
+				+ (reference ? (listNanos / 1000000) + " ms" : "not run") + ", " + c.getNoWinningEntries() + " winners";
+		report(name + " (" + result + ")", problem);
+
+	}
+
+	/*
+	 *  Helper logic to time counting matches with the winning numbers as bitmasks and as
+	 *  int arrays, over the same entries.
+	 */
+	private void checkMatch(int entries) {
+
+		Entry[] masks = new Entry[entries];
+		int[][] arrays = new int[entries][];
+		Random random = new Random(1);
+		for (int i = 0; i < entries; i ++) {
+			AutoNumbersEntry e = new AutoNumbersEntry(i + 1, "100000", "100000", "Name");
+			e.newNumberSet(random.nextInt(1000000));
+			masks[i] = e;
+			arrays[i] = e.getNumbers();
+		}
+		AutoNumbersEntry win = new AutoNumbersEntry();
+		win.newNumberSet(1);
+		int[] winNumbers = win.getNumbers();
+
+		long bestMask = Long.MAX_VALUE;
+		long bestLoop = Long.MAX_VALUE;
+		long maskMatches = 0;
+		long loopMatches = 0;
+		for (int round = 0; round < MATCH_ROUNDS; round ++) {
+
+			long start = System.nanoTime();
+			maskMatches = 0;
+			for (Entry e : masks) {
+				maskMatches += NumbersEntry.noMatching(e, win);
+			}
+			bestMask = Math.min(bestMask, System.nanoTime() - start);
+
+			start = System.nanoTime();
+			loopMatches = 0;
+			for (int[] numbers : arrays) {
+				loopMatches += countMatches(numbers, winNumbers);
+			}
+			bestLoop = Math.min(bestLoop, System.nanoTime() - start);
+
+		}
+
+		String problem = null;
+		if (maskMatches != loopMatches) problem = "bitmasks counted " + maskMatches + " matches, arrays " + loopMatches;
+
+		String name = "matching, " + entries + " entries";
+		String result = "bitmask " + (bestMask / 1000000) + " ms, nested loop " + (bestLoop / 1000000) + " ms, "
+				+ loopMatches + " matches";
+		report(name + " (" + result + ")", problem);
+
+	}
+
+	/*
+	 *  Helper logic to time scoring a competition in order and across the common pool,
+	 *  and check both find the same winning entry and prize for every member.
+	 */
+	private void checkParallel(int entries, int members) {
+
+		Competition c = competition(entries, members);
+		AutoNumbersEntry win = new AutoNumbersEntry();
+		win.newNumberSet(c.getId());
+		long winMask = win.getNumberMask();
+
+		long bestInOrder = Long.MAX_VALUE;
+		long bestPool = Long.MAX_VALUE;
+		HashMap<String, MemberPrize> inOrder = null;
+		HashMap<String, MemberPrize> pooled = null;
+		for (int round = 0; round < PARALLEL_ROUNDS; round ++) {
+
+			inOrder = null;
+			long start = System.nanoTime();
+			inOrder = new LuckyNumbersDrawTask(c, winMask, PRIZES, 0, entries).scoreRange();
+			bestInOrder = Math.min(bestInOrder, System.nanoTime() - start);
+
+			pooled = null;
+			start = System.nanoTime();
+			pooled = ForkJoinPool.commonPool().invoke(new LuckyNumbersDrawTask(c, winMask, PRIZES, 0, entries));
+			bestPool = Math.min(bestPool, System.nanoTime() - start);
+
+		}
+
+		String problem = null;
+		if (pooled.size() != inOrder.size()) problem = pooled.size() + " winners across the pool, " + inOrder.size() + " in order";
+		for (MemberPrize mp : inOrder.values()) {
+			MemberPrize other = pooled.get(mp.getMemberId());
+			if (problem == null && (other == null || other.getEntryIndex() != mp.getEntryIndex()
+					|| other.getMaxPrize() != mp.getMaxPrize())) {
+				problem = "member " + mp.getMemberId() + " won with a different entry across the pool";
+			}
+		}
+
+		String name = "parallel scoring, " + entries + " entries from " + members + " members, "
+				+ ForkJoinPool.commonPool().getParallelism() + " pool thread(s)";
+		String result = "pool " + (bestPool / 1000000) + " ms, in order " + (bestInOrder / 1000000) + " ms, "
+				+ inOrder.size() + " winners";
+		report(name + " (" + result + ")", problem);
+
+	}
+
+	/*
+	 *  Helper method to count the numbers two number sets share, comparing every number with every other.
+	 */
+	private static int countMatches(int[] numbers, int[] winNumbers) {
+
+		int matches = 0;
+		for (int j = 0; j < NUMBER_COUNT; j ++) {
+			for (int k = 0; k < NUMBER_COUNT; k ++) {
+				if (numbers[j] == winNumbers[k]) matches++;
+			}
+		}
+
+		return matches;
+	}
+
+	/*
+	 *  Helper method to build a competition in testing mode, with one entry per bill
+	 *  and members chosen at random.
+	 */
+	private static Competition competition(int entries, int members) {
+
+		String[] memberIds = new String[members];
+		for (int m = 0; m < members; m ++) {
+			memberIds[m] = String.valueOf(100000 + m);
+		}
+
+		LuckyNumbersCompetition c = new LuckyNumbersCompetition("Benchmark", 1, true);
+		Random random = new Random(42);
+		for (int i = 0; i < entries; i ++) {
+			String memberId = memberIds[random.nextInt(members)];
+			AutoNumbersEntry e = new AutoNumbersEntry(i + 1, memberId, String.valueOf(100000 + i), "Name" + memberId);
+			e.newNumberSet(random.nextInt(1000000));
+			c.addEntry(e);
+		}
+
+		return c;
+	}
+
+	/*
+	 *  Helper method to draw a competition with a list of its members, leaving it unchanged.
+	 *  Matches are counted by comparing every number with every winning number, and winning
+	 *  entries found by searching for their ids, as the draw did before.
+	 *  @return Returns the prize of each entry, by index.
+	 */
+	private static int[] listDraw(Competition c) {
+
+		AutoNumbersEntry win = new AutoNumbersEntry();
+		win.newNumberSet(c.getId());
+		int[] winNumbers = win.getNumbers();
+
+		ArrayList<String> memberIds = new ArrayList<String>();
+		for (int i = 0; i < c.getNoEntries(); i ++) {
+			Entry e = c.getEntryFromIndex(i);
+			if (!memberIds.contains(e.getMemberId())) memberIds.add(e.getMemberId());
+		}
+		ArrayList<MemberPrize> memberMaxPrizes = new ArrayList<MemberPrize>();
+		for (String memberId : memberIds) {
+			memberMaxPrizes.add(new MemberPrize(memberId));
+		}
+
+		for (int i = 0; i < c.getNoEntries(); i ++) {
+			Entry e = c.getEntryFromIndex(i);
+			int matches = countMatches(((NumbersEntry) e).getNumbers(), winNumbers);
+			if (matches > 1) {
+
+				int index = 0;
+				for (MemberPrize mp : memberMaxPrizes) {
+					if (mp.getMemberId().equals(e.getMemberId())) index = memberMaxPrizes.indexOf(mp);
+				}
+
+				int prize = PRIZES[matches];
+				if (prize > memberMaxPrizes.get(index).getMaxPrize()) {
+					memberMaxPrizes.get(index).setMaxPrize(prize);
+					memberMaxPrizes.get(index).setEntryId(e.getEntryId());
+				}
+			}
+		}
+
+		int[] prizes = new int[c.getNoEntries()];
+		for (MemberPrize mp : memberMaxPrizes) {
+			if (mp.getMaxPrize() > 0) {
+				for (int i = 0; i < c.getNoEntries(); i ++) {
+					if (c.getEntryFromIndex(i).getEntryId() == mp.getEntryId()) {
+						prizes[i] = mp.getMaxPrize();
+						break;
+					}
+				}
+			}
+		}
+
+		return prizes;
+	}
+
+	/*
+	 *  Helper method to print the result of a case.
+	 */
+	private void report(String name, String problem) {
+
+		if (problem == null) {
+			System.out.println("PASS " + name);
+		} else {
+			System.out.println("FAIL " + name + ": " + problem);
+			failures++;
+		}
+
+	}
+
+}
@@ -10,6 +10,8 @@ import java.io.Serializable;
  */
 public class Entry implements Serializable {
 
+	private static final long serialVersionUID = 2850056773381603537L;
+	
 	private int entryId;
 	private String memberId;
 	private String billId;
@@ -90,6 +92,15 @@ public class Entry implements Serializable {
 		return 0;
 	}
 
+	/**
+	* Gets the numbers of the entry as a bitmask, bit n is set if number n is in the set.
+	* To override.
+	* @return Long bitmask of the numbers, 0 if the entry has no numbers.
+	*/
+	public long getNumberMask() {
+		return 0; //To override
+	}
+
 	/**
 	* Checks how many numbers in two numbers entries match.
 	* To override. 
@@ -118,4 +129,13 @@ public class Entry implements Serializable {
 		//To override
 	}
 	
+	/**
+    * Append numbers associated with entry to a report, as printNumbers prints them.
+    * To be overriden, used by NumbersEntry derived class.
+    * @param report ReportWriter to append to.
+    */
+	public void appendNumbers(ReportWriter report) {
+		//To override
+	}
+	
 }
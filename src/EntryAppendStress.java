@@ -0,0 +1,450 @@
+/*
+ * Author: Damian Curran
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runnable stress check of adding competition entries from several threads at once.
+ * Tills reserve entry ids, build their entries, then add them as a batch or a run, and now
+ * and then abandon a reservation instead. Afterwards every store must hold each added entry
+ * once, in id order, with each bill's entries together, and find it by id.
+ * Also checks that an abandoned reservation, an entry added without a reservation and a block
+ * that cannot be added do not hold back entries reserved after them, and that tills are not
+ * left waiting when prizes are set or the competition is closed while they add.
+ * Usage: java EntryAppendStress [threads] [bills per thread], eg 8 25000
+ * Prints one line per case, and exits with status 1 if any case fails.
+ * @author Name: Damian Curran
+ */
+public class EntryAppendStress {
+
+	private final static int ABANDON_EVERY = 50; //One bill in 50 gives up its reservation.
+	private final static long STALL_MILLIS = 60000;
+
+	private int failures = 0;
+
+	/**
+    * Main program, runs every case.
+    * @param args Number of threads, and number of bills added by each thread.
+    */
+	public static void main(String[] args) {
+
+		int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+		int bills = args.length > 1 ? Integer.parseInt(args[1]) : 25000;
+
+		EntryAppendStress check = new EntryAppendStress();
+		check.run(threads, bills);
+		if (check.failures > 0) {
+			System.out.println(check.failures + " case(s) failed.");
+			System.exit(1);
+		}
+		System.out.println("All cases passed.");
+
+	}
+
+	/*
+	 *  Helper logic to run every case.
+	 */
+	private void run(int threads, int bills) {
+
+		String[] storeNames = {"list", "columnar", "range"};
+		for (String storeName : storeNames) {
+			for (int n = 1; n <= threads; n = n * 2) {
+				checkTills(storeName, n, bills * threads / n);
+			}
+		}
+
+		checkAbandoned();
+		checkUnreserved();
+		checkFailedBlock();
+		checkPrizeWhileAdding();
+		checkCloseWhileAdding(threads, bills);
+
+	}
+
+	/*
+	 *  Helper logic to add bills from several threads and check the entries once they finish.
+	 */
+	private void checkTills(String storeName, int threads, final int billsPerThread) {
+
+		final Competition c = new Competition("Stress", 1, false, store(storeName));
+		final boolean ranges = storeName.equals("range");
+		final AtomicInteger abandoned = new AtomicInteger();
+		final HashMap<String, int[]> billIds = new HashMap<String, int[]>(); //First id and count of each bill.
+
+		Thread[] tills = new Thread[threads];
+		for (int t = 0; t < threads; t ++) {
+			final int till = t;
+			tills[t] = new Thread() {
+				public void run() {
+					HashMap<String, int[]> added = new HashMap<String, int[]>();
+					for (int i = 0; i < billsPerThread; i ++) {
+						String billId = String.valueOf(100000 + till * billsPerThread + i);
+						int count = 1 + (i * 7 + till) % 10;
+						int first = c.reserveEntryIds(count);
+						if (i % ABANDON_EVERY == ABANDON_EVERY - 1) {
+							c.abandonEntryIds(first, count);
+							abandoned.addAndGet(count);
+						} else if (ranges || i % 2 == 0) {
+							c.addEntryRange(first, count, "111111", billId, "Stress");
+							added.put(billId, new int[] {first, count});
+						} else {
+							ArrayList<Entry> batch = new ArrayList<Entry>(count);
+							for (int k = 0; k < count; k ++) {
+								batch.add(new Entry(first + k, "111111", billId, "Stress"));
+							}
+							c.addEntryBatch(batch);
+							added.put(billId, new int[] {first, count});
+						}
+					}
+					synchronized (billIds) {
+						billIds.putAll(added);
+					}
+				}
+			};
+		}
+
+		long start = System.nanoTime();
+		for (Thread till : tills) {
+			till.start();
+		}
+		String problem = joinAll(tills);
+		long millis = (System.nanoTime() - start) / 1000000;
+
+		if (problem == null) problem = checkEntries(c, billIds, abandoned.get());
+
+		String name = storeName + " store, " + threads + " thread(s)";
+		if (problem == null) {
+			System.out.println("PASS " + name + " (" + c.getNoEntries() + " entries, " + abandoned.get()
+					+ " ids abandoned, " + millis + " ms, " + (c.getNoEntries() * 1000L / Math.max(1, millis)) + " entries/s)");
+		} else {
+			System.out.println("FAIL " + name + ": " + problem);
+			failures++;
+		}
+
+	}
+
+	/*
+	 *  Helper method to check the entries of a competition against the bills added:
+	 *  ids in order, each bill's entries together, and each id found by getEntryFromID.
+	 *  @return null if the entries are right, otherwise a String describing the problem.
+	 */
+	private static String checkEntries(Competition c, HashMap<String, int[]> billIds, int abandoned) {
+
+		int expected = 0;
+		for (int[] bill : billIds.values()) {
+			expected = expected + bill[1];
+		}
+		if (c.getNoEntries() != expected) return expected + " entries were added, but " + c.getNoEntries() + " are seen";
+		if (c.reserveEntryIds(0) - 1 != expected + abandoned) return "the reserved ids do not add up to the entries and abandoned ids";
+
+		int lastId = 0;
+		for (int i = 0; i < c.getNoEntries(); i ++) {
+			Entry e = c.getEntryFromIndex(i);
+			if (e.getEntryId() <= lastId) return "entry id " + e.getEntryId() + " at index " + i + " is out of order";
+			lastId = e.getEntryId();
+			int[] bill = billIds.get(e.getBillId());
+			if (bill == null || e.getEntryId() < bill[0] || e.getEntryId() >= bill[0] + bill[1]) {
+				return "entry id " + e.getEntryId() + " has the wrong bill";
+			}
+			Entry found = c.getEntryFromID(e.getEntryId());
+			if (found.getEntryId() != e.getEntryId() || !found.getBillId().equals(e.getBillId())) {
+				return "entry id " + e.getEntryId() + " was not found by id";
+			}
+		}
+
+		return null;
+	}
+
+	/*
+	 *  Helper logic to check that entries reserved after an unfinished reservation are seen
+	 *  once it is abandoned.
+	 */
+	private void checkAbandoned() {
+
+		Competition c = new Competition("Stress", 1, false, new ColumnarEntryStore());
+		int first = c.reserveEntryIds(5);
+		Thread later = addLater(c, 3, "200001");
+
+		String problem = waitsFor(later, c);
+		c.abandonEntryIds(first, 5);
+		if (problem == null) problem = joinAll(new Thread[] {later});
+		if (problem == null && c.getNoEntries() != 3) problem = c.getNoEntries() + " entries are seen, not 3";
+		if (problem == null && (c.hasEntryId(1) || !c.hasEntryId(6) || !c.hasEntryId(8))) problem = "ids were not found where expected";
+
+		//Once saved and loaded, new entries still go after the abandoned ids, not over the entries:
+		Competition loaded = reload(c);
+		if (problem == null && (!loaded.hasEntryId(6) || !loaded.hasEntryId(8))) problem = "ids were not found after load";
+		if (problem == null && loaded.reserveEntryIds(1) != 9) problem = "ids reserved after load repeat the entries";
+
+		report("abandoned reservation", problem);
+
+	}
+
+	/*
+	 *  Helper logic to check that an entry added without a reservation, while a reserved block
+	 *  waits, does not hold back the reserved entries.
+	 */
+	private void checkUnreserved() {
+
+		Competition c = new Competition("Stress", 1, false, new EntryStore());
+		int first = c.reserveEntryIds(2);
+		Thread later = addLater(c, 3, "200001");
+
+		String problem = waitsFor(later, c);
+		c.addEntry(new Entry(50, "111111", "200002", "Stress"));
+		ArrayList<Entry> batch = new ArrayList<Entry>();
+		batch.add(new Entry(first, "111111", "200003", "Stress"));
+		batch.add(new Entry(first + 1, "111111", "200003", "Stress"));
+		c.addEntryBatch(batch);
+		if (problem == null) problem = joinAll(new Thread[] {later});
+		if (problem == null && c.getNoEntries() != 6) problem = c.getNoEntries() + " entries are seen, not 6";
+
+		//The next reservation goes after every entry, including the unreserved one:
+		int next = c.reserveEntryIds(1);
+		c.addEntryRange(next, 1, "111111", "200004", "Stress");
+		if (problem == null && c.getNoEntries() != 7) problem = "an entry reserved afterwards is not seen";
+		for (int id = 1; id <= 5 && problem == null; id ++) {
+			if (!c.hasEntryId(id)) problem = "id " + id + " was not found";
+		}
+		if (problem == null && (!c.hasEntryId(50) || !c.hasEntryId(next))) problem = "ids were not found where expected";
+
+		report("unreserved entry while a block waits", problem);
+
+	}
+
+	/*
+	 *  Helper logic to check that a block the store cannot take fails for its own writer only.
+	 */
+	private void checkFailedBlock() {
+
+		Competition c = new Competition("Stress", 1, false, new RangeEntryStore());
+		int first = c.reserveEntryIds(1);
+		Thread later = addLater(c, 3, "200001");
+
+		String problem = waitsFor(later, c);
+		ArrayList<Entry> batch = new ArrayList<Entry>();
+		batch.add(new NumbersEntry(first, "111111", "200002", new int[] {1, 2, 3, 4, 5, 6, 7}, "Stress"));
+		try {
+			c.addEntryBatch(batch);
+			if (problem == null) problem = "a range store took an entry with numbers";
+		} catch (IllegalArgumentException e) {
+			//Expected, the range store only keeps plain entries
+		}
+		if (problem == null) problem = joinAll(new Thread[] {later});
+		if (problem == null && c.getNoEntries() != 3) problem = c.getNoEntries() + " entries are seen, not 3";
+
+		report("block that cannot be added", problem);
+
+	}
+
+	/*
+	 *  Helper logic to check that a till handing over its entries while a prize is being set
+	 *  is not left waiting. Setting the prize holds the competition's append lock, and the
+	 *  store keeps it held until the till has handed over.
+	 */
+	private void checkPrizeWhileAdding() {
+		
+		final CountDownLatch setting = new CountDownLatch(1);
+		final CountDownLatch handedOver = new CountDownLatch(1);
+		final Competition c = new Competition("Stress", 1, false, new EntryStore() {
+			public void setPrize(int slot, int p) {
+				setting.countDown();
+				try {
+					handedOver.await();
+				} catch (InterruptedException e) {
+					//Set the prize anyway
+				}
+				super.setPrize(slot, p);
+			}
+		});
+		c.addEntryRange(c.reserveEntryIds(1), 1, "111111", "200001", "Stress");
+		
+		Thread prize = new Thread() {
+			public void run() {
+				c.setEntryPrize(0, 100);
+			}
+		};
+		prize.start();
+		String problem = null;
+		Thread later = null;
+		try {
+			setting.await();
+			later = addLater(c, 3, "200002");
+			while (later.getState() != Thread.State.WAITING && later.isAlive()) {
+				Thread.sleep(1);
+			}
+		} catch (InterruptedException e) {
+			problem = "interrupted";
+		}
+		handedOver.countDown();
+		
+		if (problem == null) problem = joinAll(new Thread[] {prize, later});
+		if (problem == null && c.getNoEntries() != 4) problem = c.getNoEntries() + " entries are seen, not 4";
+		if (problem == null && c.getEntryPrize(0) != 100) problem = "the prize was not set";
+		
+		report("entries handed over while a prize is set", problem);
+		
+	}
+	
+	/*
+	 *  Helper logic to close the competition while tills add entries. Every till must finish,
+	 *  with its entries either added or refused, and the entries seen must be those added.
+	 */
+	private void checkCloseWhileAdding(int threads, final int billsPerThread) {
+		
+		final Competition c = new Competition("Stress", 1, false, new ColumnarEntryStore());
+		final AtomicInteger added = new AtomicInteger();
+		final AtomicInteger refused = new AtomicInteger();
+		
+		Thread[] tills = new Thread[threads];
+		for (int t = 0; t < threads; t ++) {
+			final int till = t;
+			tills[t] = new Thread() {
+				public void run() {
+					for (int i = 0; i < billsPerThread; i ++) {
+						String billId = String.valueOf(200000 + till * billsPerThread + i);
+						try {
+							c.addEntryRange(c.reserveEntryIds(3), 3, "111111", billId, "Stress");
+							added.addAndGet(3);
+						} catch (IllegalStateException e) {
+							refused.incrementAndGet(); //Closed, as expected once closeEntries is called
+						}
+					}
+				}
+			};
+			tills[t].start();
+		}
+		
+		while (added.get() < 3 * billsPerThread / 2 && anyAlive(tills)) {
+			Thread.yield();
+		}
+		c.closeEntries();
+		String problem = joinAll(tills);
+		if (problem == null && c.getNoEntries() != added.get()) {
+			problem = c.getNoEntries() + " entries are seen, but " + added.get() + " were added";
+		}
+		
+		report("closed while " + threads + " thread(s) add (" + added.get() + " entries, "
+				+ refused.get() + " bills refused)", problem);
+		
+	}
+	
+	/*
+	 *  Helper method to check if any of the threads is still running.
+	 */
+	private static boolean anyAlive(Thread[] threads) {
+		
+		for (Thread t : threads) {
+			if (t.isAlive()) return true;
+		}
+		
+		return false;
+	}
+	
+	/*
+	 *  Helper method to start a thread that reserves ids and adds plain entries for them.
+	 */
+	private static Thread addLater(final Competition c, final int count, final String billId) {
+
+		Thread t = new Thread() {
+			public void run() {
+				c.addEntryRange(c.reserveEntryIds(count), count, "111111", billId, "Stress");
+			}
+		};
+		t.start();
+
+		return t;
+	}
+
+	/*
+	 *  Helper method to check that a thread adding entries after an unfinished reservation
+	 *  is still waiting, with none of its entries seen.
+	 *  @return null if it waits, otherwise a String describing the problem.
+	 */
+	private static String waitsFor(Thread later, Competition c) {
+
+		try {
+			later.join(200);
+		} catch (InterruptedException e) {
+			return "interrupted";
+		}
+		if (!later.isAlive() || c.getNoEntries() != 0) return "entries were seen before an earlier reservation was added";
+
+		return null;
+	}
+
+	/*
+	 *  Helper method to wait for threads, failing if they take so long they must be stalled.
+	 *  @return null if they all finished, otherwise a String describing the problem.
+	 */
+	private static String joinAll(Thread[] threads) {
+
+		long deadline = System.currentTimeMillis() + STALL_MILLIS;
+		for (Thread t : threads) {
+			try {
+				t.join(Math.max(1, deadline - System.currentTimeMillis()));
+			} catch (InterruptedException e) {
+				return "interrupted";
+			}
+			if (t.isAlive()) return "a thread is still waiting after " + STALL_MILLIS + " ms, adding has stalled";
+		}
+
+		return null;
+	}
+
+	/*
+	 *  Helper method to print the result of a case.
+	 */
+	private void report(String name, String problem) {
+
+		if (problem == null) {
+			System.out.println("PASS " + name);
+		} else {
+			System.out.println("FAIL " + name + ": " + problem);
+			failures++;
+		}
+
+	}
+
+	/*
+	 *  Helper method to save a competition with Java serialization and load it back,
+	 *  as a saved competitions file is.
+	 */
+	private static Competition reload(Competition c) {
+
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			ObjectOutputStream out = new ObjectOutputStream(bytes);
+			out.writeObject(c);
+			out.close();
+			ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+			return (Competition) in.readObject();
+		} catch (IOException e) {
+			throw new IllegalStateException("Could not save and load competition: " + e.getMessage());
+		} catch (ClassNotFoundException e) {
+			throw new IllegalStateException("Could not load competition: " + e.getMessage());
+		}
+
+	}
+
+	/*
+	 *  Helper method to create an empty store of a kind.
+	 */
+	private static EntryStore store(String storeName) {
+
+		if (storeName.equals("columnar")) return new ColumnarEntryStore();
+		if (storeName.equals("range")) return new RangeEntryStore();
+
+		return new EntryStore();
+	}
+
+}
@@ -0,0 +1,168 @@
+/*
+ * Author: Damian Curran
+ */
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Class represents a block of consecutive reserved entry ids, handed to a Competition to be
+ * added in id order (see Competition.reserveEntryIds).
+ * A block holds either built entries, a run of plain entries from one bill,
+ * or no entries at all, for ids that were reserved and then abandoned.
+ * @author Name: Damian Curran
+ */
+public class EntryBlock {
+
+	private int firstEntryId;
+	private int count;
+	private ArrayList<Entry> entries; //Null for a run or an abandoned block.
+	private String memberId;
+	private String billId; //Null for an abandoned block.
+	private String memberName;
+	private CountDownLatch added;
+	private RuntimeException failure;
+
+	/**
+    * Constructor of the EntryBlock class, for built entries.
+    * @param entries List of Entry objects with consecutive ids, in id order.
+    */
+	public EntryBlock(ArrayList<Entry> entries) {
+		this(entries.get(0).getEntryId(), entries.size(), null, entries.get(0).getBillId(), null);
+		this.entries = entries;
+
+	}
+
+	/**
+    * Overloaded constructor of the EntryBlock class, for a run of plain entries from one bill.
+    * @param firstEntryId Entry id of the first entry, integer.
+    * @param count Number of entries, integer.
+    * @param memberId Member id String.
+    * @param billId Bill id String.
+    * @param memberName Member name String.
+    */
+	public EntryBlock(int firstEntryId, int count, String memberId, String billId, String memberName) {
+		this.firstEntryId = firstEntryId;
+		this.count = count;
+		this.memberId = memberId;
+		this.billId = billId;
+		this.memberName = memberName;
+		this.added = new CountDownLatch(1);
+
+	}
+
+	/**
+    * Overloaded constructor of the EntryBlock class, for abandoned ids which get no entries.
+    * @param firstEntryId First abandoned entry id, integer.
+    * @param count Number of abandoned ids, integer.
+    */
+	public EntryBlock(int firstEntryId, int count) {
+		this(firstEntryId, count, null, null, null);
+	}
+
+	/**
+    * Get the first entry id of the block.
+    * @return Returns entry id integer.
+    */
+	public int getFirstEntryId() {
+		return firstEntryId;
+	}
+
+	/**
+    * Get the last entry id of the block.
+    * @return Returns entry id integer.
+    */
+	public int getLastEntryId() {
+		return firstEntryId + count - 1;
+	}
+
+	/**
+    * Get number of entry ids in the block.
+    * @return Returns number integer.
+    */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+    * Get the built entries of the block.
+    * @return Returns list of Entry objects, null for a run or an abandoned block.
+    */
+	public ArrayList<Entry> getEntries() {
+		return entries;
+	}
+
+	/**
+    * Get an entry of the block, as added to the competition.
+    * @param i Position of the entry in the block, from 0, integer.
+    * @return Returns Entry object, a new plain entry for a run.
+    */
+	public Entry getEntry(int i) {
+
+		if (entries != null) return entries.get(i);
+
+		return new Entry(firstEntryId + i, memberId, billId, memberName);
+	}
+
+	/**
+    * Get member id of a run.
+    * @return Returns id String.
+    */
+	public String getMemberId() {
+		return memberId;
+	}
+
+	/**
+    * Get bill id of the entries.
+    * @return Returns id String, null for an abandoned block.
+    */
+	public String getBillId() {
+		return billId;
+	}
+
+	/**
+    * Get member name of a run.
+    * @return Returns name String.
+    */
+	public String getMemberName() {
+		return memberName;
+	}
+
+	/**
+    * Identify if the ids of the block were abandoned, so it has no entries.
+    * @return Returns boolean, true if abandoned.
+    */
+	public boolean isAbandoned() {
+		return billId == null;
+	}
+
+	/**
+    * Mark the block as added to the competition, or as failed, and wake its writer.
+    * @param failure Exception thrown while adding the entries, null if they were added.
+    */
+	public void markAdded(RuntimeException failure) {
+		this.failure = failure;
+		added.countDown();
+
+	}
+
+	/**
+    * Wait until the block has been added to the competition, by this or another thread.
+    * @throws RuntimeException thrown while adding the entries, if any.
+    */
+	public void awaitAdded() {
+
+		boolean interrupted = false;
+		while (added.getCount() > 0) {
+			try {
+				added.await();
+			} catch (InterruptedException e) {
+				interrupted = true; //Keep waiting, the entries are already handed over.
+			}
+		}
+		if (interrupted) Thread.currentThread().interrupt();
+		if (failure != null) throw failure;
+
+	}
+
+}
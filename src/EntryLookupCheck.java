@@ -0,0 +1,224 @@
+/*
+ * Author: Damian Curran
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+
+/**
+ * Runnable check of finding and updating competition entries by id, with getEntryFromID
+ * and updateEntries. Covers entries added in id order, ids with gaps, repeated ids, and
+ * competitions loaded from saved files, in each kind of EntryStore.
+ * Every id is checked against a scan for the first entry with the id.
+ * Usage: java EntryLookupCheck [saved competitions files], eg files/data.dat
+ * Prints one line per case, and exits with status 1 if any case fails.
+ * @author Name: Damian Curran
+ */
+public class EntryLookupCheck {
+
+	private int failures = 0;
+
+	/**
+    * Main program, runs every case.
+    * @param args Saved competitions files (as written by SimpleCompetitions) to check as well.
+    */
+	public static void main(String[] args) {
+
+		EntryLookupCheck check = new EntryLookupCheck();
+		check.run(args);
+		if (check.failures > 0) {
+			System.out.println(check.failures + " case(s) failed.");
+			System.exit(1);
+		}
+		System.out.println("All cases passed.");
+
+	}
+
+	/*
+	 *  Helper logic to run every case against each kind of store.
+	 */
+	private void run(String[] files) {
+
+		int[] sequential = new int[1000];
+		for (int i = 0; i < sequential.length; i ++) {
+			sequential[i] = i + 1;
+		}
+		int[] gaps = {1, 2, 3, 7, 8, 9, 20, 4, 5, 30, 31, 6};
+		int[] repeated = {3, 2, 3, 1, 5, 3, 7, 5, 9, 1, 6}; //Id 3 is first displaced, then at its own index.
+
+		String[] storeNames = {"list", "columnar", "range"};
+		for (String storeName : storeNames) {
+			checkCase("sequential ids, " + storeName + " store", competition(sequential, storeName));
+			checkCase("ids with gaps, " + storeName + " store", competition(gaps, storeName));
+			checkCase("repeated ids, " + storeName + " store", competition(repeated, storeName));
+			checkCase("repeated ids after save and load, " + storeName + " store",
+					reload(competition(repeated, storeName)));
+		}
+
+		//Files saved before the EntryStore held a plain list of entries, which is loaded into a list store
+		checkCase("repeated ids in a plain entry list", new Competition("Legacy", 1, true, new EntryStore(entries(repeated))));
+
+		for (String file : files) {
+			checkFile(file);
+		}
+
+	}
+
+	/*
+	 *  Helper logic to check every competition in a saved competitions file.
+	 */
+	private void checkFile(String file) {
+
+		try {
+			ObjectInputStream in = new ObjectInputStream(new FileInputStream(file));
+			SimpleCompetitions sc = (SimpleCompetitions) in.readObject();
+			in.close();
+			for (Competition c : sc.getCompetitions()) {
+				checkCase(file + ", competition " + c.getId(), c);
+			}
+		} catch (IOException e) {
+			System.out.println("SKIP " + file + ": could not be read as a saved competitions object file.");
+			System.out.println(e.getMessage());
+		} catch (ClassNotFoundException e) {
+			System.out.println("SKIP " + file + ": class not found.");
+		}
+
+	}
+
+	/*
+	 *  Helper logic to check each id of a competition with getEntryFromID, then update
+	 *  each entry's prize with updateEntries and check only the first entry with the id changed.
+	 */
+	private void checkCase(String name, Competition c) {
+
+		String problem = null;
+		int n = c.getNoEntries();
+		int maxId = 0;
+		for (int i = 0; i < n; i ++) {
+			maxId = Math.max(maxId, c.getEntryId(i));
+		}
+
+		for (int id = 1; id <= maxId && problem == null; id ++) {
+			int expected = firstIndexOf(c, id);
+			if (expected < 0) {
+				//No entry has the id, so the entry at index id - 1 is returned, as before the index
+				if (id <= n && !sameEntry(c.getEntryFromID(id), c.getEntryFromIndex(id - 1))) {
+					problem = "id " + id + " is missing, but the entry at index " + (id - 1) + " was not returned";
+				}
+				continue;
+			}
+			if (!sameEntry(c.getEntryFromID(id), c.getEntryFromIndex(expected))) {
+				problem = "id " + id + " did not find the entry at index " + expected;
+			}
+		}
+
+		int[] prizes = new int[n];
+		for (int i = 0; i < n; i ++) {
+			prizes[i] = c.getEntryPrize(i);
+		}
+		for (int id = 1; id <= maxId && problem == null; id ++) {
+			int expected = firstIndexOf(c, id);
+			if (expected < 0) continue;
+			Entry e = c.getEntryFromID(id);
+			e.setPrize(prizes[expected] + id);
+			c.updateEntries(e);
+			prizes[expected] = prizes[expected] + id;
+			for (int i = 0; i < n && problem == null; i ++) {
+				if (c.getEntryPrize(i) != prizes[i]) {
+					problem = "updating id " + id + " changed the prize at index " + i;
+				}
+			}
+		}
+		if (problem == null && c.getNoEntries() != n) problem = "updates changed the number of entries";
+
+		if (problem == null) {
+			System.out.println("PASS " + name + " (" + n + " entries)");
+		} else {
+			System.out.println("FAIL " + name + ": " + problem);
+			failures++;
+		}
+
+	}
+
+	/*
+	 *  Helper method to find the first entry with an id by scanning every entry.
+	 *  @return index integer, -1 if no entry has the id.
+	 */
+	private static int firstIndexOf(Competition c, int entryId) {
+
+		for (int i = 0; i < c.getNoEntries(); i ++) {
+			if (c.getEntryId(i) == entryId) return i;
+		}
+
+		return -1;
+	}
+
+	/*
+	 *  Helper method to compare two entries by id and bill, as each entry of a case has its own bill.
+	 */
+	private static boolean sameEntry(Entry a, Entry b) {
+		return a.getEntryId() == b.getEntryId() && a.getBillId().equals(b.getBillId());
+	}
+
+	/*
+	 *  Helper method to create a competition holding plain entries with the given ids, in order.
+	 */
+	private static Competition competition(int[] ids, String storeName) {
+
+		EntryStore store;
+		if (storeName.equals("columnar")) {
+			store = new ColumnarEntryStore();
+		} else if (storeName.equals("range")) {
+			store = new RangeEntryStore();
+		} else {
+			store = new EntryStore();
+		}
+
+		Competition c = new Competition("Check", 1, true, store);
+		for (Entry e : entries(ids)) {
+			c.addEntry(e);
+		}
+
+		return c;
+	}
+
+	/*
+	 *  Helper method to create plain entries with the given ids, each from its own bill.
+	 */
+	private static ArrayList<Entry> entries(int[] ids) {
+
+		ArrayList<Entry> list = new ArrayList<Entry>();
+		for (int i = 0; i < ids.length; i ++) {
+			list.add(new Entry(ids[i], "111111", String.valueOf(100000 + i), "Check"));
+		}
+
+		return list;
+	}
+
+	/*
+	 *  Helper method to save a competition with Java serialization and load it back,
+	 *  as a saved competitions file is.
+	 */
+	private static Competition reload(Competition c) {
+
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			ObjectOutputStream out = new ObjectOutputStream(bytes);
+			out.writeObject(c);
+			out.close();
+			ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+			return (Competition) in.readObject();
+		} catch (IOException e) {
+			throw new IllegalStateException("Could not save and load competition: " + e.getMessage());
+		} catch (ClassNotFoundException e) {
+			throw new IllegalStateException("Could not load competition: " + e.getMessage());
+		}
+
+	}
+
+}
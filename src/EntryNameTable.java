@@ -0,0 +1,222 @@
+/*
+ * Author: Damian Curran
+ */
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Objects;
+
+/**
+ * Table of the bills and members that entries in an EntryStore belong to.
+ * Each bill id, member id and member name is kept once, and entries refer to them by slot.
+ * A bill slot leads to the member slot of the bill.
+ * @author Name: Damian Curran
+ */
+public class EntryNameTable implements Serializable {
+
+	private static final long serialVersionUID = -4228162820516468536L;
+	private final static int INITIAL_CAPACITY = 1024;
+
+	private ArrayList<String> billIds;
+	private int[] billMembers;
+	private ArrayList<String> memberIds;
+	private ArrayList<String> memberNames;
+
+	//Bill id to bill slot and member id to member slot, for the latest of each.
+	//Not serialized, rebuilt after load (see readObject).
+	private transient HashMap<String, Integer> billIndex;
+	private transient HashMap<String, Integer> memberIndex;
+
+	/**
+    * Constructor of the EntryNameTable class.
+    */
+	public EntryNameTable() {
+
+		this.billIds = new ArrayList<String>();
+		this.billMembers = new int[INITIAL_CAPACITY];
+		this.memberIds = new ArrayList<String>();
+		this.memberNames = new ArrayList<String>();
+		buildIndex();
+
+	}
+
+	/**
+    * Get the slot of a bill, adding the bill and its member if either is new.
+    * A bill or member seen before with a different member or name gets a new slot.
+    * @param billId Bill id String.
+    * @param memberId Member id String.
+    * @param memberName Member name String.
+    * @return Returns bill slot integer.
+    */
+	public int billSlotFor(String billId, String memberId, String memberName) {
+
+		int member = memberSlotFor(memberId, memberName);
+		Integer bill = billIndex.get(billId);
+		if (bill != null && billMembers[bill] == member) return bill;
+
+		return addBill(billId, member);
+	}
+
+	/**
+    * Get number of bills in the table.
+    * @return Returns number of bills integer.
+    */
+	public int getNoBills() {
+		return billIds.size();
+	}
+
+	/**
+    * Get the id of a bill.
+    * @param bill Bill slot, integer.
+    * @return Returns bill id String.
+    */
+	public String getBillId(int bill) {
+		return billIds.get(bill);
+	}
+
+	/**
+    * Get the member slot of a bill.
+    * @param bill Bill slot, integer.
+    * @return Returns member slot integer.
+    */
+	public int getBillMember(int bill) {
+		return billMembers[bill];
+	}
+
+	/**
+    * Get the id of a member.
+    * @param member Member slot, integer.
+    * @return Returns member id String.
+    */
+	public String getMemberId(int member) {
+		return memberIds.get(member);
+	}
+
+	/**
+    * Get the name of a member.
+    * @param member Member slot, integer.
+    * @return Returns member name String.
+    */
+	public String getMemberName(int member) {
+		return memberNames.get(member);
+	}
+
+	/**
+    * Write the table to a binary snapshot.
+    * @param out Stream to write to.
+    * @param format SnapshotFormat object writing the snapshot.
+    * @throws IOException if the stream cannot be written.
+    */
+	public void write(DataOutputStream out, SnapshotFormat format) throws IOException {
+
+		SnapshotFormat.writeVarInt(out, memberIds.size());
+		for (int i = 0; i < memberIds.size(); i ++) {
+			format.writeString(out, memberIds.get(i));
+			format.writeString(out, memberNames.get(i));
+		}
+
+		SnapshotFormat.writeVarInt(out, billIds.size());
+		for (int i = 0; i < billIds.size(); i ++) {
+			format.writeString(out, billIds.get(i));
+			SnapshotFormat.writeVarInt(out, billMembers[i]);
+		}
+
+	}
+
+	/**
+    * Read a table written by write.
+    * @param in Stream to read from.
+    * @param format SnapshotFormat object reading the snapshot.
+    * @return Returns EntryNameTable object.
+    * @throws IOException if the stream cannot be read or is not properly formatted.
+    */
+	public static EntryNameTable read(DataInputStream in, SnapshotFormat format) throws IOException {
+
+		EntryNameTable table = new EntryNameTable();
+
+		int noMembers = SnapshotFormat.readVarInt(in);
+		for (int i = 0; i < noMembers; i ++) {
+			table.addMember(format.readString(in), format.readString(in));
+		}
+
+		int noBills = SnapshotFormat.readVarInt(in);
+		for (int i = 0; i < noBills; i ++) {
+			String billId = format.readString(in);
+			int member = SnapshotFormat.readVarInt(in);
+			if (member < 0 || member >= noMembers) throw new IOException("Bad member reference in snapshot: " + member);
+			table.addBill(billId, member);
+		}
+
+		return table;
+	}
+
+	/*
+	 *  Helper method to get the slot of a member, adding it if the member is new or its name differs.
+	 */
+	private int memberSlotFor(String memberId, String memberName) {
+
+		Integer member = memberIndex.get(memberId);
+		if (member != null && Objects.equals(memberNames.get(member), memberName)) return member;
+
+		return addMember(memberId, memberName);
+	}
+
+	/*
+	 *  Helper method to add a member at the next slot.
+	 */
+	private int addMember(String memberId, String memberName) {
+
+		memberIds.add(memberId);
+		memberNames.add(memberName);
+		memberIndex.put(memberId, memberIds.size() - 1);
+
+		return memberIds.size() - 1;
+	}
+
+	/*
+	 *  Helper method to add a bill at the next slot.
+	 */
+	private int addBill(String billId, int member) {
+
+		if (billIds.size() == billMembers.length) billMembers = Arrays.copyOf(billMembers, billMembers.length * 2);
+		billIds.add(billId);
+		billMembers[billIds.size() - 1] = member;
+		billIndex.put(billId, billIds.size() - 1);
+
+		return billIds.size() - 1;
+	}
+
+	/*
+	 *  Helper method to build the bill and member indexes from the tables.
+	 *  Later slots overwrite earlier ones, so each id maps to its latest slot.
+	 */
+	private void buildIndex() {
+
+		billIndex = new HashMap<String, Integer>();
+		for (int i = 0; i < billIds.size(); i ++) {
+			billIndex.put(billIds.get(i), i);
+		}
+
+		memberIndex = new HashMap<String, Integer>();
+		for (int i = 0; i < memberIds.size(); i ++) {
+			memberIndex.put(memberIds.get(i), i);
+		}
+
+	}
+
+	/*
+	 *  Custom deserialization hook. Indexes are transient, so rebuild them
+	 *  once the tables have been read back from a saved file.
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		buildIndex();
+	}
+
+}
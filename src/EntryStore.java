@@ -0,0 +1,204 @@
+/*
+ * Author: Damian Curran
+ */
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+
+/**
+ * Store of the entries held by a Competition, addressed by slot (first entry = slot 0).
+ * Default store keeps a list of Entry objects.
+ * Derived classes can keep the entries in other layouts.
+ * @author Name: Damian Curran
+ */
+public class EntryStore implements Serializable {
+
+	private static final long serialVersionUID = 2743405029866686215L;
+
+	//Entry type is kept in the top two bits of a stored number mask, see typedMask.
+	protected final static long NUMBERS = (1L << 62) - 1;
+	private final static int KIND_SHIFT = 62;
+	private final static int KIND_PLAIN = 0;
+	private final static int KIND_NUMBERS = 1;
+	private final static int KIND_AUTO_NUMBERS = 2;
+
+	private ArrayList<Entry> entries;
+
+	/**
+    * Constructor of the EntryStore class.
+    */
+	public EntryStore() {
+		this(new ArrayList<Entry>());
+	}
+
+	/**
+    * Overloaded constructor of the EntryStore class, for an existing list of entries.
+    * @param entries List of Entry objects to store.
+    */
+	public EntryStore(ArrayList<Entry> entries) {
+		this.entries = entries;
+	}
+
+	/**
+    * Get number of entries in the store.
+    * @return Returns number of entries integer.
+    */
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+    * Get the entry at a slot.
+    * @param slot Slot of the entry, integer.
+    * @return Returns Entry object at the slot.
+    */
+	public Entry getEntry(int slot) {
+		return entries.get(slot);
+	}
+
+	/**
+    * Add an entry to the end of the store.
+    * @param e Entry object to add.
+    */
+	public void add(Entry e) {
+		entries.add(e);
+	}
+
+	/**
+    * Add a run of plain entries with consecutive ids from one bill to the end of the store.
+    * @param firstEntryId Entry id of the first entry, integer.
+    * @param count Number of entries, integer.
+    * @param memberId Member id String.
+    * @param billId Bill id String.
+    * @param memberName Member name String.
+    */
+	public void addRange(int firstEntryId, int count, String memberId, String billId, String memberName) {
+		for (int i = 0; i < count; i ++) {
+			add(new Entry(firstEntryId + i, memberId, billId, memberName));
+		}
+	}
+
+	/**
+    * Replace the entry at a slot.
+    * @param slot Slot of the entry, integer.
+    * @param e Entry object to store.
+    */
+	public void set(int slot, Entry e) {
+		entries.set(slot, e);
+	}
+
+	/**
+    * Get the entry id of the entry at a slot.
+    * @param slot Slot of the entry, integer.
+    * @return Returns entry id integer.
+    */
+	public int getEntryId(int slot) {
+		return entries.get(slot).getEntryId();
+	}
+
+	/**
+    * Get the member id of the entry at a slot.
+    * @param slot Slot of the entry, integer.
+    * @return Returns member id String.
+    */
+	public String getMemberId(int slot) {
+		return entries.get(slot).getMemberId();
+	}
+
+	/**
+    * Get the numbers of the entry at a slot as a bitmask.
+    * @param slot Slot of the entry, integer.
+    * @return Returns bitmask of the numbers, 0 if the entry has no numbers.
+    */
+	public long getNumberMask(int slot) {
+		return entries.get(slot).getNumberMask();
+	}
+
+	/**
+    * Get the prize of the entry at a slot.
+    * @param slot Slot of the entry, integer.
+    * @return Returns prize integer.
+    */
+	public int getPrize(int slot) {
+		return entries.get(slot).getPrize();
+	}
+
+	/**
+    * Set the prize of the entry at a slot.
+    * @param slot Slot of the entry, integer.
+    * @param p Prize, integer.
+    */
+	public void setPrize(int slot, int p) {
+		entries.get(slot).setPrize(p);
+	}
+
+	/**
+    * Write any entries held outside the heap to their storage device.
+    * Default store holds none.
+    * @throws IOException if the entries cannot be written.
+    */
+	public void force() throws IOException {
+		//To override
+	}
+
+	/**
+    * Release anything the store holds outside the heap, once the entries are no longer changed.
+    * Default store holds nothing.
+    * @throws IOException if the store cannot be closed.
+    */
+	public void close() throws IOException {
+		//To override
+	}
+
+	/**
+    * Get the numbers of an entry as a bitmask, with the entry type in the top bits.
+    * Used by derived stores that keep entries as numbers rather than objects.
+    * @param e Entry object.
+    * @return Returns typed bitmask, read back with createEntry.
+    */
+	protected static long typedMask(Entry e) {
+
+		int kind = KIND_PLAIN;
+		if (e instanceof AutoNumbersEntry) {
+			kind = KIND_AUTO_NUMBERS;
+		} else if (e instanceof NumbersEntry) {
+			kind = KIND_NUMBERS;
+		}
+
+		return e.getNumberMask() | ((long) kind << KIND_SHIFT);
+	}
+
+	/**
+    * Create an Entry object of the type held in a typed bitmask.
+    * @param typedMask Numbers and entry type, as from typedMask.
+    * @param entryId Entry id, integer.
+    * @param memberId Member id String.
+    * @param billId Bill id String.
+    * @param memberName Member name String.
+    * @param prize Prize, integer.
+    * @return Returns new Entry object.
+    */
+	protected static Entry createEntry(long typedMask, int entryId, String memberId, String billId,
+			String memberName, int prize) {
+
+		int kind = (int) (typedMask >>> KIND_SHIFT);
+
+		Entry e;
+		if (kind == KIND_AUTO_NUMBERS) {
+			AutoNumbersEntry a = new AutoNumbersEntry(entryId, memberId, billId, memberName);
+			a.setNumberMask(typedMask & NUMBERS);
+			e = a;
+		} else if (kind == KIND_NUMBERS) {
+			NumbersEntry n = new NumbersEntry(entryId, memberId, billId, memberName);
+			n.setNumberMask(typedMask & NUMBERS);
+			e = n;
+		} else {
+			e = new Entry(entryId, memberId, billId, memberName);
+		}
+		e.setPrize(prize);
+
+		return e;
+	}
+
+}
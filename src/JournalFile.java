@@ -0,0 +1,176 @@
+/*
+ * Author: Damian Curran
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal file of records, used as a write-ahead log between saves.
+ * Each record is written as its length, a CRC32 of its bytes and the bytes themselves,
+ * and the file is synced to disk after every append. A record torn by a crash fails
+ * its length or CRC check and is dropped, along with anything after it.
+ * What the records hold is up to the caller. Appends are safe from several threads.
+ * @author Name: Damian Curran
+ */
+public class JournalFile {
+
+	private final static int BUFFER_SIZE = 1 << 16;
+
+	private String fileName;
+	private FileOutputStream outputStream;
+
+	/**
+    * Constructor of the JournalFile class. The file is not opened until first used.
+    * @param fileName The filename of the journal, String.
+    */
+	public JournalFile(String fileName) {
+		this.fileName = fileName;
+		this.outputStream = null;
+	}
+
+	/**
+    * Get journal filename.
+    * @return Returns filename String.
+    */
+	public String getFileName() {
+		return fileName;
+	}
+
+	/**
+    * Read all complete records in the journal, oldest first.
+    * A torn or corrupt tail is cut off the file, so later appends follow the last good record.
+    * @return Returns array list of streams over each record's bytes. Empty if there is no journal.
+    * @throws IOException if the journal cannot be read.
+    */
+	public ArrayList<DataInputStream> readRecords() throws IOException {
+
+		ArrayList<DataInputStream> records = new ArrayList<DataInputStream>();
+		File file = new File(fileName);
+		if (!file.exists()) return records;
+
+		RandomAccessFile in = new RandomAccessFile(file, "rw");
+
+		try {
+
+			long goodLength = 0;
+			long fileLength = in.length();
+
+			while (goodLength + 8 <= fileLength) {
+
+				in.seek(goodLength);
+				int length = in.readInt();
+				int crc = in.readInt();
+				if (length < 0 || goodLength + 8 + length > fileLength) break;
+
+				byte[] record = new byte[length];
+				in.readFully(record);
+				if (checksum(record) != crc) break;
+
+				records.add(new DataInputStream(new ByteArrayInputStream(record)));
+				goodLength = goodLength + 8 + length;
+
+			}
+
+			if (goodLength < fileLength) in.setLength(goodLength);
+
+		} catch (EOFException e) {
+			//Length checked before every read, not expected.
+		} finally {
+			in.close();
+		}
+
+		return records;
+	}
+
+	/**
+    * Append one record and sync the journal to disk.
+    * Callers batch related changes into one record, so each sync covers a whole user action.
+    * @param record Bytes of the record.
+    * @throws IOException if the journal cannot be written.
+    */
+	public synchronized void append(ByteArrayOutputStream record) throws IOException {
+
+		if (outputStream == null) outputStream = new FileOutputStream(fileName, true);
+
+		ByteArrayOutputStream framed = new ByteArrayOutputStream(record.size() + 8);
+		DataOutputStream header = new DataOutputStream(framed);
+		byte[] bytes = record.toByteArray();
+		header.writeInt(bytes.length);
+		header.writeInt(checksum(bytes));
+		header.write(bytes);
+
+		framed.writeTo(outputStream);
+		outputStream.getFD().sync();
+
+	}
+
+	/**
+    * Append several records and sync the journal to disk once, for bulk changes.
+    * If interrupted, the records written before the torn one are still read back.
+    * @param records List of the bytes of each record, in order.
+    * @throws IOException if the journal cannot be written.
+    */
+	public synchronized void append(ArrayList<ByteArrayOutputStream> records) throws IOException {
+
+		if (outputStream == null) outputStream = new FileOutputStream(fileName, true);
+
+		BufferedOutputStream buffer = new BufferedOutputStream(outputStream, BUFFER_SIZE);
+		DataOutputStream out = new DataOutputStream(buffer);
+		for (ByteArrayOutputStream record : records) {
+			byte[] bytes = record.toByteArray();
+			out.writeInt(bytes.length);
+			out.writeInt(checksum(bytes));
+			out.write(bytes);
+		}
+
+		out.flush();
+		outputStream.getFD().sync();
+
+	}
+
+	/**
+    * Close and delete the journal, once everything in it is saved elsewhere or discarded.
+    * @throws IOException if the journal cannot be deleted.
+    */
+	public synchronized void delete() throws IOException {
+
+		close();
+		File file = new File(fileName);
+		if (file.exists() && !file.delete()) throw new IOException("Could not delete " + fileName);
+
+	}
+
+	/**
+    * Close the journal file if open.
+    * @throws IOException if the journal cannot be closed.
+    */
+	public synchronized void close() throws IOException {
+
+		if (outputStream != null) {
+			outputStream.close();
+			outputStream = null;
+		}
+
+	}
+
+	/*
+	 *  Helper method to compute the CRC32 of a record.
+	 */
+	private static int checksum(byte[] bytes) {
+		CRC32 crc = new CRC32();
+		crc.update(bytes);
+		return (int) crc.getValue();
+	}
+
+}
@@ -0,0 +1,250 @@
+/*
+ * Author: Damian Curran
+ */
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Reads and writes the JSON used by the HTTP API (see CompetitionServer).
+ * Objects are read as a HashMap of String to value, arrays as an ArrayList, numbers as Long
+ * (or Double if not whole), and strings, booleans and null as String, Boolean and null.
+ * @author Name: Damian Curran
+ */
+public class JsonFormat {
+
+	private String text;
+	private int position;
+
+	/*
+	 *  Constructor for reading one JSON text, see parse.
+	 */
+	private JsonFormat(String text) {
+		this.text = text;
+		this.position = 0;
+	}
+
+	/**
+    * Static method to read a JSON text.
+    * @param text JSON text, String.
+    * @return Returns the value of the text, as described for the class.
+    * @throws IllegalArgumentException if the text is not valid JSON.
+    */
+	public static Object parse(String text) {
+
+		JsonFormat reader = new JsonFormat(text);
+		Object value = reader.readValue();
+		reader.skipWhitespace();
+		if (reader.position < text.length()) throw reader.error("Unexpected text");
+
+		return value;
+	}
+
+	/**
+    * Static method to append a String as a quoted JSON string.
+    * @param sb StringBuilder to append to.
+    * @param s String to append, written as null if null.
+    * @return Returns the StringBuilder, for chaining.
+    */
+	public static StringBuilder appendString(StringBuilder sb, String s) {
+
+		if (s == null) return sb.append("null");
+
+		sb.append('"');
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c == '"' || c == '\\') {
+				sb.append('\\').append(c);
+			} else if (c < 0x20) {
+				sb.append(String.format("\\u%04x", (int) c));
+			} else {
+				sb.append(c);
+			}
+		}
+		sb.append('"');
+
+		return sb;
+	}
+
+	/*
+	 *  Helper method to read the value starting at the current position.
+	 */
+	private Object readValue() {
+
+		skipWhitespace();
+		if (position >= text.length()) throw error("Value expected");
+
+		char c = text.charAt(position);
+		if (c == '{') return readObject();
+		if (c == '[') return readArray();
+		if (c == '"') return readString();
+		if (c == '-' || (c >= '0' && c <= '9')) return readNumber();
+		if (text.startsWith("true", position)) {
+			position = position + 4;
+			return Boolean.TRUE;
+		}
+		if (text.startsWith("false", position)) {
+			position = position + 5;
+			return Boolean.FALSE;
+		}
+		if (text.startsWith("null", position)) {
+			position = position + 4;
+			return null;
+		}
+
+		throw error("Value expected");
+	}
+
+	/*
+	 *  Helper method to read an object, with the current position at its opening brace.
+	 */
+	private HashMap<String, Object> readObject() {
+
+		HashMap<String, Object> object = new HashMap<String, Object>();
+		position++;
+		skipWhitespace();
+		if (next('}')) return object;
+
+		do {
+			skipWhitespace();
+			if (position >= text.length() || text.charAt(position) != '"') throw error("Name expected");
+			String name = readString();
+			skipWhitespace();
+			if (!next(':')) throw error("':' expected");
+			object.put(name, readValue());
+			skipWhitespace();
+		} while (next(','));
+
+		if (!next('}')) throw error("',' or '}' expected");
+
+		return object;
+	}
+
+	/*
+	 *  Helper method to read an array, with the current position at its opening bracket.
+	 */
+	private ArrayList<Object> readArray() {
+
+		ArrayList<Object> array = new ArrayList<Object>();
+		position++;
+		skipWhitespace();
+		if (next(']')) return array;
+
+		do {
+			array.add(readValue());
+			skipWhitespace();
+		} while (next(','));
+
+		if (!next(']')) throw error("',' or ']' expected");
+
+		return array;
+	}
+
+	/*
+	 *  Helper method to read a string, with the current position at its opening quote.
+	 */
+	private String readString() {
+
+		StringBuilder sb = new StringBuilder();
+		position++;
+
+		while (position < text.length()) {
+			char c = text.charAt(position++);
+			if (c == '"') return sb.toString();
+			if (c != '\\') {
+				sb.append(c);
+				continue;
+			}
+
+			if (position >= text.length()) break;
+			char escaped = text.charAt(position++);
+			switch (escaped) {
+				case 'b': sb.append('\b'); break;
+				case 'f': sb.append('\f'); break;
+				case 'n': sb.append('\n'); break;
+				case 'r': sb.append('\r'); break;
+				case 't': sb.append('\t'); break;
+				case 'u':
+					if (position + 4 > text.length()) throw error("Invalid escape");
+					try {
+						sb.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+					} catch (NumberFormatException e) {
+						throw error("Invalid escape");
+					}
+					position = position + 4;
+					break;
+				case '"':
+				case '\\':
+				case '/':
+					sb.append(escaped);
+					break;
+				default:
+					throw error("Invalid escape");
+			}
+		}
+
+		throw error("Unterminated string");
+	}
+
+	/*
+	 *  Helper method to read a number, as a Long if it is whole and fits, otherwise as a Double.
+	 */
+	private Object readNumber() {
+
+		int start = position;
+		boolean whole = true;
+		if (text.charAt(position) == '-') position++;
+		while (position < text.length()) {
+			char c = text.charAt(position);
+			if (c == '.' || c == 'e' || c == 'E' || c == '+' || (c == '-' && !whole)) {
+				whole = false;
+			} else if (c < '0' || c > '9') {
+				break;
+			}
+			position++;
+		}
+
+		String number = text.substring(start, position);
+		try {
+			if (whole) return Long.valueOf(number);
+			return Double.valueOf(number);
+		} catch (NumberFormatException e) {
+			if (whole) {
+				try {
+					return Double.valueOf(number);
+				} catch (NumberFormatException e2) {
+					//Not a number either way, reported below.
+				}
+			}
+			throw error("Invalid number");
+		}
+	}
+
+	/*
+	 *  Helper method to step over a character if it is next.
+	 *  @return Returns true if the character was next.
+	 */
+	private boolean next(char c) {
+
+		if (position < text.length() && text.charAt(position) == c) {
+			position++;
+			return true;
+		}
+		return false;
+	}
+
+	/*
+	 *  Helper method to step over any whitespace.
+	 */
+	private void skipWhitespace() {
+		while (position < text.length() && Character.isWhitespace(text.charAt(position))) position++;
+	}
+
+	/*
+	 *  Helper method to build the exception for invalid JSON at the current position.
+	 */
+	private IllegalArgumentException error(String message) {
+		return new IllegalArgumentException("Invalid JSON at position " + position + ": " + message);
+	}
+
+}
@@ -0,0 +1,389 @@
+/*
+ * Author: Damian Curran
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runnable load check of the HTTP API (see CompetitionServer), run against a running program.
+ * Creates a Lucky Numbers competition and sends requests to it from several threads, adding
+ * entries from consecutive bill ids, reading the summary, or a mix of one summary in ten.
+ * Reports latency and requests per second, and checks that:
+ * no entry id is given out twice, the same bill sent twice at once is added only once,
+ * and bills sent while a competition is drawn are either in the draw or can be used again.
+ * Bill ids from the first bill id on must exist and be unused, enough for every request and check.
+ * Usage: java LoadTest url [threads] [requests] [first bill id] [posts|gets|mix],
+ * eg java LoadTest http://localhost:8080/competitions 32 20000 100000 posts
+ * Prints one line per case, and exits with status 1 if any case fails.
+ * @author Name: Damian Curran
+ */
+public class LoadTest {
+
+	private final static int DRAW_BILLS = 2000; //Bills sent while a competition is drawn.
+	private final static int TIMEOUT_MILLIS = 60000;
+
+	private String base;
+	private int failures = 0;
+
+	/*
+	 *  Constructor for checking the API at a base URL.
+	 */
+	private LoadTest(String base) {
+		this.base = base.endsWith("/") ? base.substring(0, base.length() - 1) : base;
+	}
+
+	/**
+    * Main program, runs every case.
+    * @param args Base URL of the API, number of threads, number of requests, first bill id, and mode.
+    */
+	public static void main(String[] args) {
+
+		if (args.length < 1) {
+			System.out.println("Usage: java LoadTest url [threads] [requests] [first bill id] [posts|gets|mix]");
+			System.exit(1);
+		}
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+		int requests = args.length > 2 ? Integer.parseInt(args[2]) : 20000;
+		int firstBill = args.length > 3 ? Integer.parseInt(args[3]) : 100000;
+		String mode = args.length > 4 ? args[4] : "posts";
+
+		LoadTest check = new LoadTest(args[0]);
+		try {
+			check.checkLoad(threads, requests, firstBill, mode);
+			check.checkDoubleSubmit(firstBill + requests);
+			check.checkDrawUnderLoad(threads, firstBill + requests + 1);
+		} catch (IOException e) {
+			System.out.println("FAIL could not run: " + e);
+			check.failures++;
+		}
+
+		if (check.failures > 0) {
+			System.out.println(check.failures + " case(s) failed.");
+			System.exit(1);
+		}
+		System.out.println("All cases passed.");
+
+	}
+
+	/*
+	 *  Helper logic to send requests from several threads and report latency and throughput.
+	 *  Every request must succeed, and every entry id added must be new.
+	 */
+	private void checkLoad(int threads, final int requests, final int firstBill, final String mode) throws IOException {
+
+		final int compId = createCompetition("Load");
+		final long[] latency = new long[requests];
+		final AtomicInteger next = new AtomicInteger();
+		final AtomicInteger failed = new AtomicInteger();
+		final String[] firstProblem = new String[1];
+		final HashSet<Long> entryIds = new HashSet<Long>();
+		final AtomicInteger repeatedIds = new AtomicInteger();
+
+		Thread[] senders = new Thread[threads];
+		for (int t = 0; t < threads; t ++) {
+			senders[t] = new Thread() {
+				public void run() {
+					int i;
+					while ((i = next.getAndIncrement()) < requests) {
+						boolean get = mode.equals("gets") || (mode.equals("mix") && i % 10 == 9);
+						long start = System.nanoTime();
+						String problem;
+						StringBuilder answer = new StringBuilder();
+						try {
+							int status;
+							if (get) {
+								status = send("GET", base, null, answer);
+							} else {
+								status = addBill(compId, firstBill + i, answer);
+							}
+							problem = status == (get ? 200 : 201) ? null : status + " " + answer;
+						} catch (IOException e) {
+							problem = e.toString();
+						}
+						latency[i] = System.nanoTime() - start;
+
+						if (problem == null && !get) {
+							for (Long id : entryIds(answer)) {
+								synchronized (entryIds) {
+									if (!entryIds.add(id)) repeatedIds.incrementAndGet();
+								}
+							}
+						}
+						if (problem != null && failed.incrementAndGet() == 1) firstProblem[0] = problem;
+					}
+				}
+			};
+		}
+
+		long start = System.nanoTime();
+		for (Thread sender : senders) {
+			sender.start();
+		}
+		joinAll(senders);
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		Arrays.sort(latency);
+		String name = mode + ", " + threads + " thread(s), " + requests + " request(s)";
+		String result = String.format("%.0f requests/s, p50 %.2f ms, p99 %.2f ms, max %.2f ms, %d entries",
+				requests / seconds, latency[requests / 2] / 1e6, latency[(int) (requests * 0.99)] / 1e6,
+				latency[requests - 1] / 1e6, entryIds.size());
+
+		String problem = null;
+		if (failed.get() > 0) problem = failed.get() + " request(s) failed, first: " + firstProblem[0];
+		if (problem == null && repeatedIds.get() > 0) problem = repeatedIds.get() + " entry id(s) given out twice";
+		report(name + " (" + result + ")", problem);
+
+	}
+
+	/*
+	 *  Helper logic to send the same bill twice at once. One request must add the entries,
+	 *  and the other be answered 422 as the bill is already used.
+	 */
+	private void checkDoubleSubmit(final int billId) throws IOException {
+
+		final int compId = createCompetition("Double");
+		final int[] statuses = new int[2];
+		final CountDownLatch start = new CountDownLatch(1);
+
+		Thread[] senders = new Thread[2];
+		for (int t = 0; t < 2; t ++) {
+			final int slot = t;
+			senders[t] = new Thread() {
+				public void run() {
+					try {
+						start.await();
+						statuses[slot] = addBill(compId, billId, new StringBuilder());
+					} catch (InterruptedException e) {
+						statuses[slot] = -1;
+					} catch (IOException e) {
+						statuses[slot] = -1;
+					}
+				}
+			};
+			senders[t].start();
+		}
+		start.countDown();
+		joinAll(senders);
+
+		String problem = null;
+		if (Math.min(statuses[0], statuses[1]) != 201 || Math.max(statuses[0], statuses[1]) != 422) {
+			problem = "answered " + statuses[0] + " and " + statuses[1] + ", not 201 and 422";
+		}
+		report("same bill sent twice at once", problem);
+
+	}
+
+	/*
+	 *  Helper logic to draw a competition while bills are being added to it.
+	 *  Each bill must be added, or refused as the competition is drawn or gone.
+	 *  The draw must hold exactly the entries of the bills added, and every refused bill
+	 *  must be free to be added to another competition.
+	 */
+	private void checkDrawUnderLoad(int threads, final int firstBill) throws IOException {
+
+		final int compId = createCompetition("Draw");
+		final AtomicInteger next = new AtomicInteger();
+		final AtomicInteger addedEntries = new AtomicInteger();
+		final ArrayList<Integer> refused = new ArrayList<Integer>();
+		final String[] firstProblem = new String[1];
+		final CountDownLatch halfway = new CountDownLatch(DRAW_BILLS / 2);
+
+		Thread[] senders = new Thread[threads];
+		for (int t = 0; t < threads; t ++) {
+			senders[t] = new Thread() {
+				public void run() {
+					int i;
+					while ((i = next.getAndIncrement()) < DRAW_BILLS) {
+						try {
+							StringBuilder answer = new StringBuilder();
+							int status = addBill(compId, firstBill + i, answer);
+							if (status == 201) {
+								addedEntries.addAndGet(entryIds(answer).size());
+							} else if (status == 404 || status == 422 && answer.indexOf("drawn") >= 0) {
+								synchronized (refused) {
+									refused.add(firstBill + i);
+								}
+							} else {
+								synchronized (firstProblem) {
+									if (firstProblem[0] == null) firstProblem[0] = status + " " + answer;
+								}
+							}
+						} catch (IOException e) {
+							synchronized (firstProblem) {
+								if (firstProblem[0] == null) firstProblem[0] = e.toString();
+							}
+						}
+						halfway.countDown();
+					}
+				}
+			};
+			senders[t].start();
+		}
+
+		try {
+			halfway.await();
+		} catch (InterruptedException e) {
+			throw new IOException("Interrupted waiting for bills to be added.");
+		}
+		StringBuilder draw = new StringBuilder();
+		int drawStatus = send("POST", base + "/" + compId + "/draw", "{}", draw);
+		joinAll(senders);
+
+		String problem = firstProblem[0];
+		if (problem == null && drawStatus != 200) problem = "draw answered " + drawStatus + " " + draw;
+		if (problem == null) {
+			long drawn = (Long) object(object(draw).get("competition")).get("entries");
+			if (drawn != addedEntries.get()) {
+				problem = "the draw holds " + drawn + " entries, but " + addedEntries.get() + " were added";
+			}
+		}
+		if (problem == null && refused.isEmpty()) problem = "no bill was sent after the draw, send more threads or bills";
+
+		//Refused bills are released, so can go to another competition:
+		if (problem == null) {
+			int otherId = createCompetition("After draw");
+			for (int billId : refused) {
+				StringBuilder answer = new StringBuilder();
+				int status = addBill(otherId, billId, answer);
+				if (status != 201) {
+					problem = "refused bill " + billId + " could not be added again: " + status + " " + answer;
+					break;
+				}
+			}
+		}
+
+		report("draw while " + threads + " thread(s) add " + DRAW_BILLS + " bills ("
+				+ addedEntries.get() + " entries drawn, " + refused.size() + " bills refused)", problem);
+
+	}
+
+	/*
+	 *  Helper method to create a Lucky Numbers competition.
+	 *  @return id of the competition.
+	 */
+	private int createCompetition(String name) throws IOException {
+
+		StringBuilder answer = new StringBuilder();
+		int status = send("POST", base, "{\"name\":\"" + name + "\",\"type\":\"L\"}", answer);
+		if (status != 201) throw new IOException("Could not create a competition: " + status + " " + answer);
+
+		return ((Long) object(answer).get("id")).intValue();
+	}
+
+	/*
+	 *  Helper method to add the entries of a bill to a competition.
+	 *  @return HTTP status of the answer, with its body appended to answer.
+	 */
+	private int addBill(int compId, int billId, StringBuilder answer) throws IOException {
+		return send("POST", base + "/" + compId + "/entries", "{\"billId\":\"" + billId + "\"}", answer);
+	}
+
+	/*
+	 *  Helper method to read the entry ids of an answer to adding a bill.
+	 */
+	private static ArrayList<Long> entryIds(StringBuilder answer) {
+
+		ArrayList<Long> ids = new ArrayList<Long>();
+		for (Object entry : (ArrayList<?>) object(answer).get("entries")) {
+			ids.add((Long) object(entry).get("entryId"));
+		}
+
+		return ids;
+	}
+
+	/*
+	 *  Helper method to read the body of an answer as a JSON object.
+	 */
+	private static HashMap<?, ?> object(StringBuilder answer) {
+		return object(JsonFormat.parse(answer.toString()));
+	}
+
+	/*
+	 *  Helper method to cast a JSON value to an object.
+	 */
+	private static HashMap<?, ?> object(Object value) {
+
+		if (!(value instanceof HashMap)) throw new IllegalArgumentException("A JSON object was expected.");
+
+		return (HashMap<?, ?>) value;
+	}
+
+	/*
+	 *  Helper method to send a request and read the whole answer.
+	 *  @return HTTP status of the answer, with its body appended to answer.
+	 */
+	private static int send(String method, String url, String body, StringBuilder answer) throws IOException {
+
+		HttpURLConnection con = (HttpURLConnection) new URL(url).openConnection();
+		con.setRequestMethod(method);
+		con.setConnectTimeout(TIMEOUT_MILLIS);
+		con.setReadTimeout(TIMEOUT_MILLIS);
+		if (body != null) {
+			con.setDoOutput(true);
+			con.setRequestProperty("Content-Type", "application/json; charset=utf-8");
+			OutputStream out = con.getOutputStream();
+			out.write(body.getBytes(StandardCharsets.UTF_8));
+			out.close();
+		}
+
+		int status = con.getResponseCode();
+		InputStream in = status < 400 ? con.getInputStream() : con.getErrorStream();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		if (in != null) {
+			byte[] buffer = new byte[4096];
+			int n;
+			while ((n = in.read(buffer)) > 0) {
+				bytes.write(buffer, 0, n);
+			}
+			in.close();
+		}
+
+		answer.append(bytes.toString("UTF-8"));
+
+		return status;
+	}
+
+	/*
+	 *  Helper method to wait for threads, failing if they take so long they must be stalled.
+	 */
+	private static void joinAll(Thread[] threads) throws IOException {
+
+		long deadline = System.currentTimeMillis() + 10L * TIMEOUT_MILLIS;
+		for (Thread t : threads) {
+			try {
+				t.join(Math.max(1, deadline - System.currentTimeMillis()));
+			} catch (InterruptedException e) {
+				throw new IOException("Interrupted waiting for requests.");
+			}
+			if (t.isAlive()) throw new IOException("Requests are still waiting, the server has stalled.");
+		}
+
+	}
+
+	/*
+	 *  Helper method to print the result of a case.
+	 */
+	private void report(String name, String problem) {
+
+		if (problem == null) {
+			System.out.println("PASS " + name);
+		} else {
+			System.out.println("FAIL " + name + ": " + problem);
+			failures++;
+		}
+
+	}
+
+}
@@ -3,8 +3,13 @@
  */
 
 import java.util.Scanner;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Derived Competition class representing a Lucky Numbers competition type.
@@ -12,6 +17,8 @@ import java.util.ArrayList;
  */
 public class LuckyNumbersCompetition extends Competition implements Serializable {
 	
+	private static final long serialVersionUID = 5354700981804913955L;
+	
 	private AutoNumbersEntry win;
 	private final int SEVEN_NUMBERS = 50000;
 	private final int SIX_NUMBERS = 5000;
@@ -24,6 +31,7 @@ public class LuckyNumbersCompetition extends Competition implements Serializable
 	private final int NUMBER_COUNT = 7;
 	private final int MAX_NUMBER = 35;
 	private static final String compType = "LuckyNumbersCompetition"; 
+	private static final int PARALLEL_THRESHOLD = 1 << 18;
 		
 	/**
     * Constructor of the LuckyNumbersCompetition class.
@@ -37,6 +45,19 @@ public class LuckyNumbersCompetition extends Competition implements Serializable
 
 	}
 	
+	/**
+    * Overloaded constructor of the LuckyNumbersCompetition class, keeping entries in the given store.
+    * @param n The name of new competition object, a String.
+    * @param id The id of the new object, int.
+    * @param tmode Testing mode boolean, true if the object is created whilst in 'Testing mode'.
+    * @param store EntryStore object holding the entries, which may already hold some.
+    */
+	public LuckyNumbersCompetition(String n, int id, boolean tmode, EntryStore store) {
+		
+		super(n, id, tmode, store);
+
+	}
+	
 	/**
     * Get competition type. Override.
     * @return Returns derived competition type as String.
@@ -56,57 +77,146 @@ public class LuckyNumbersCompetition extends Competition implements Serializable
 	@Override
 	public void addEntries(Bill b, String memberName, Scanner keyboard) {
 		
-    	int numberOfEntries = b.getNoEntries();
-    	String memberId = b.getMemberId();
-    	String billId = b.getBillId();
+    	//User inputs any manual entry number sets:
+    	ArrayList<int[]> manualEntries = readManualEntries(b, keyboard);
     	
+    	//Create new entries and add to the competition:
+    	int firstNewEntry = this.addEntries(b, memberName, manualEntries);
+    	printNewEntries(firstNewEntry, b.getNoEntries());
+    			
+	}
+	
+	/**
+    * Ask the user for the manual number sets of a bill. Override.
+    * @param b Bill object the entries will be added from.
+    * @param keyboard Scanner object used for user input.
+    * @return Returns list of manual number sets, checked with checkManualNumbers.
+    */
+	@Override
+	public ArrayList<int[]> readManualEntries(Bill b, Scanner keyboard) {
+		
     	//User inputs and program validates the number of manual entries for this bill:  	
-    	int noManualEntries = getNoManualEntries(b, numberOfEntries, keyboard);
+    	int noManualEntries = getNoManualEntries(b, b.getNoEntries(), keyboard);
 
     	//User inputs any manual entry number sets:
-    	ArrayList<int[]> manualEntries = getManualEntries(noManualEntries, keyboard);
-    	
-    	//Create new entries and add to the competition:
-    	int firstNewEntry = this.getNoEntries() + 1;
-    	
-    	System.out.println("The following entries have been added:");
+    	return getManualEntries(noManualEntries, keyboard);
+	}
+	
+	/**
+    * Print entries just added from a bill to the console, with their numbers. Override.
+    * @param firstEntryId Entry id of the first entry added, integer.
+    * @param count Number of entries added, integer.
+    */
+	@Override
+	public void printNewEntries(int firstEntryId, int count) {
+		
+    	ReportWriter report = new ReportWriter();
+    	report.append("The following entries have been added:").newLine();
 
-    	//Add and print Manual-number entries:
-		for (int i = firstNewEntry; i < firstNewEntry + noManualEntries; i++) {
+    	//Print Manual-number entries, then Auto-number entries:
+		for (int i = firstEntryId; i < firstEntryId + count; i++) {
 			
-			//Use NumbersEntry derived class for manual entries.
-			NumbersEntry e = 
-					new NumbersEntry(i, memberId, billId, manualEntries.get(i - firstNewEntry), memberName);
-			this.addEntry(e);
-			
-			System.out.printf("%-1s %-6s %-8s", "Entry ID:", e.getEntryId(), "Numbers:");
-			e.printNumbers();
-			System.out.println();
+			Entry e = this.getEntryFromID(i);
+			report.append("Entry ID: ").appendLeft(e.getEntryId(), 6).append(" Numbers:");
+			e.appendNumbers(report);
+			report.newLine();
 			
 		}
+		report.flush();
+		
+	}
+	
+	/**
+    * Logic for adding auto-number entries from a bill without user input. Override.
+    * @param b Bill object to which the new entries will be assigned.
+    * @param memberName String of member name associated with the Bill.
+    */
+	@Override
+	public void addEntries(Bill b, String memberName) {
+		this.addEntries(b, memberName, new ArrayList<int[]>());
+	}
+	
+	/**
+    * Logic for adding entries from a bill without user input. Override.
+    * Manual-number entries are added first, then auto-number entries for the rest of the bill.
+    * @param b Bill object to which the new entries will be assigned.
+    * @param memberName String of member name associated with the Bill.
+    * @param manualEntries List of manual number sets, already checked with checkManualNumbers.
+    * @return Returns the entry id of the first entry added, the rest following on from it.
+    */
+	@Override
+	public int addEntries(Bill b, String memberName, ArrayList<int[]> manualEntries) {
+		
+    	int numberOfEntries = b.getNoEntries();
+    	int noManualEntries = manualEntries.size();
+    	String memberId = b.getMemberId();
+    	String billId = b.getBillId();
+    	
+    	//Reserve the entry ids, so the entries can be built while other tills add theirs:
+    	int firstNewEntry = this.reserveEntryIds(numberOfEntries);
+    	ArrayList<Entry> batch = new ArrayList<Entry>(numberOfEntries);
+    	boolean built = false;
     	
-    	//Add and print Auto-number entries:
-		for (int i = firstNewEntry + noManualEntries; i < firstNewEntry + numberOfEntries; i++) {
+    	try {
+	    	//Add Manual-number entries:
+			for (int i = firstNewEntry; i < firstNewEntry + noManualEntries; i++) {
 			
-			//Used AutoNumbersEntry derived class for auto-number entries.
-			AutoNumbersEntry e = new AutoNumbersEntry(i, memberId, billId, memberName);
+				//Use NumbersEntry derived class for manual entries.
+				batch.add(new NumbersEntry(i, memberId, billId, manualEntries.get(i - firstNewEntry), memberName));
 			
-			//Add auto numbers to new entry based on testing mode.
-			if (this.getIsTestingMode()) {
-				//If in testing mode, create number set based on number of entries in current competition:
-				e.newNumberSet(this.getNoEntries());
-			} else {
-				//If not in testing mode, create number set based on random seed:
-				e.newNumberSet();
 			}
-			this.addEntry(e);
+    	
+	    	//Add Auto-number entries:
+			for (int i = firstNewEntry + noManualEntries; i < firstNewEntry + numberOfEntries; i++) {
 			
-			System.out.printf("%-1s %-6s %-8s", "Entry ID:", e.getEntryId(), "Numbers:");
-			e.printNumbers();
-			System.out.println();
+				//Used AutoNumbersEntry derived class for auto-number entries.
+				AutoNumbersEntry e = new AutoNumbersEntry(i, memberId, billId, memberName);
 			
-		}  	
-    			
+				//Add auto numbers to new entry based on testing mode.
+				if (this.getIsTestingMode()) {
+					//If in testing mode, create number set based on number of entries before this one:
+					e.newNumberSet(i - 1);
+				} else {
+					//If not in testing mode, create number set based on random seed:
+					e.newNumberSet();
+				}
+				batch.add(e);
+			
+			}
+			built = true;
+			
+    	} finally {
+    		//Give the ids up if the entries could not be built, so later entries are not held back:
+    		if (!built) this.abandonEntryIds(firstNewEntry, numberOfEntries);
+    	}
+		this.addEntryBatch(batch);
+		
+		return firstNewEntry;
+	}
+	
+	/**
+    * Check a manual number set for an entry. Override.
+    * Must be 7 different numbers from the range 1 to 35.
+    * @param numbers Integer array of the numbers entered.
+    * @return Returns null if the numbers are valid, otherwise a String describing the problem.
+    */
+	@Override
+	public String checkManualNumbers(int[] numbers) {
+		
+		if (numbers.length < NUMBER_COUNT) return "Fewer than 7 numbers are provided.";
+		if (numbers.length > NUMBER_COUNT) return "More than 7 numbers are provided.";
+		
+		for (int j = 0; j < NUMBER_COUNT; j++) {
+	    	for (int k = 0; k < NUMBER_COUNT; k++) {
+				if (j!=k && numbers[k] == numbers[j]) return "All numbers must be different!";
+			}
+    	}
+		
+		for (int j = 0; j < NUMBER_COUNT; j ++) {
+			if (numbers[j] > MAX_NUMBER || numbers[j] < 1) return "All numbers must be in the range from 1 to 35!";
+		}
+		
+		return null;
 	}
 	
 	/**
@@ -124,47 +234,55 @@ public class LuckyNumbersCompetition extends Competition implements Serializable
 			win.newNumberSet(); //Creates winning numbers set based on random seed
 		}
 		
-		//Generate list of MemberPrize objects.
+		//Map of memberId to MemberPrize for the member's best entry.
 		//Used to track whether a member has won a prize previously and identify maximum prize.
-		ArrayList<MemberPrize> memberMaxPrizes = new ArrayList<MemberPrize>();
-		ArrayList<String> contestantIds = getUniqueMemberIds();
-		for (String s : contestantIds) {
-			MemberPrize mp = new MemberPrize(s);
-			memberMaxPrizes.add(mp);
-		}
-		
-		//Draw winners, checking that member has not previously won a higher prize in this competition.
-		for (int i = 0; i < this.getNoEntries(); i ++) {
-			Entry e = this.getEntryFromIndex(i);
-			int matches = NumbersEntry.noMatching(e, win);
-			if (matches > 1) {
-				
-				int index = 0;
-				for (MemberPrize mp : memberMaxPrizes) {
-					String memberId = mp.getMemberId();
-					if (memberId.equals(e.getMemberId())) index = memberMaxPrizes.indexOf(mp);
-				}
-				
-				int prize = prizes[matches];				
-				if (prize > memberMaxPrizes.get(index).getMaxPrize()) {
-					memberMaxPrizes.get(index).setMaxPrize(prize);
-					memberMaxPrizes.get(index).setEntryId(e.getEntryId());
-				}
-			}
+		//Large competitions are scored in parallel, which gives the same winners as scoring in order.
+		LuckyNumbersDrawTask draw = 
+				new LuckyNumbersDrawTask(this, win.getNumberMask(), prizes, 0, this.getNoEntries());
+		HashMap<String, MemberPrize> memberMaxPrizes;
+		if (this.getNoEntries() >= PARALLEL_THRESHOLD && Runtime.getRuntime().availableProcessors() > 1) {
+			memberMaxPrizes = ForkJoinPool.commonPool().invoke(draw);
+		} else {
+			memberMaxPrizes = draw.scoreRange();
 		}
 		
 		//Update entries in the competition with prizes as awarded.
-		for (MemberPrize mp : memberMaxPrizes) {
-			if (mp.getMaxPrize() > 0) {
-				Entry winningEntry = this.getEntryFromID(mp.getEntryId());
-				int maxPrize = mp.getMaxPrize();
-				winningEntry.setPrize(maxPrize);
-				this.updateEntries(winningEntry);	
-			}
+		for (MemberPrize mp : memberMaxPrizes.values()) {
+			this.setEntryPrize(mp.getEntryIndex(), mp.getMaxPrize());
 		}
 			
 	}
 	
+	/**
+    * Write the winning numbers, if drawn, to a binary snapshot. Override.
+    * @param out Stream to write to.
+    * @param format SnapshotFormat object writing the snapshot.
+    * @throws IOException if the stream cannot be written.
+    */
+	@Override
+	public void writeDetails(DataOutputStream out, SnapshotFormat format) throws IOException {
+		
+		out.writeBoolean(win != null);
+		if (win != null) format.writeNumbers(out, win);
+		
+	}
+	
+	/**
+    * Read the winning numbers, if drawn, from a binary snapshot. Override.
+    * @param in Stream to read from.
+    * @param format SnapshotFormat object reading the snapshot.
+    * @throws IOException if the stream cannot be read.
+    */
+	@Override
+	public void readDetails(DataInputStream in, SnapshotFormat format) throws IOException {
+		
+		if (in.readBoolean()) {
+			win = new AutoNumbersEntry();
+			win.setNumbers(format.readNumbers(in));
+		}
+		
+	}
+	
 	/**
     * Control logic for printing winners for the competition to the console. Override.
     */
@@ -172,44 +290,29 @@ public class LuckyNumbersCompetition extends Competition implements Serializable
 	public void printWinners() {
 		
 		printCompetitionDetails();
-		System.out.print("Lucky Numbers:");
-		win.printNumbers();
-		System.out.print("\n");
-		System.out.println("Winning entries:");
+		ReportWriter report = new ReportWriter();
+		report.append("Lucky Numbers:");
+		win.appendNumbers(report);
+		report.append('\n');
+		report.append("Winning entries:").newLine();
 		
 		for (int i = 0; i < this.getNoEntries(); i ++) {
 			
-			Entry e = this.getEntryFromIndex(i);
-			if (e.getPrize() != 0) {
-				System.out.printf("Member ID: %2s, Member Name: %2s, Prize: %-5d%n",
-						e.getMemberId(), e.getMemberName(), e.getPrize());
-				System.out.print("--> Entry ID: " + e.getEntryId()
-						+ ", Numbers:");
-				e.printNumbers();
-				System.out.print("\n");
+			if (this.getEntryPrize(i) != 0) {
+				Entry e = this.getEntryFromIndex(i);
+				report.append("Member ID: ").appendRight(e.getMemberId(), 2)
+						.append(", Member Name: ").appendRight(e.getMemberName(), 2)
+						.append(", Prize: ").appendLeft(e.getPrize(), 5).newLine();
+				report.append("--> Entry ID: ").append(e.getEntryId()).append(", Numbers:");
+				e.appendNumbers(report);
+				report.append('\n');
 			}
 			
 		}
+		report.flush();
 		
 	}
 
-	/*
-	 *  Helper method to generate an array of unique memberIds with entries in the competition.
-	 *  @return ArrayList of member Id Strings.
-	 */
-	private ArrayList<String> getUniqueMemberIds() {
-		
-		ArrayList<String> uniqueMemberIds = new ArrayList<String>();
-		for (int i = 0; i < this.getNoEntries(); i ++) {
-			Entry e = this.getEntryFromIndex(i);
-			if (!uniqueMemberIds.contains(e.getMemberId())) {
-				uniqueMemberIds.add(e.getMemberId());
-			}
-		}
-		
-		return uniqueMemberIds;
-	}
-	
 	/*
 	 *  Helper logic for entering and validating the number of manual entries to be inputed.
 	 *  @return integer of number of entries.
@@ -289,23 +392,12 @@ public class LuckyNumbersCompetition extends Competition implements Serializable
     			numbers[j] = indivNumber; 
     		}
 	    	
-	    	//Check for duplicates in numbers with nested loop:
-	    	for (int j = 0; j < NUMBER_COUNT; j++) {
-		    	for (int k = 0; k < NUMBER_COUNT; k++) {
-					if (j!=k && numbers[k] == numbers[j]) {
-						System.out.println("Invalid input! All numbers must be different!");
-	    				continue manualEntryLoop;
-					}
-				}
+	    	//Check for duplicates and that entered numbers are within range:
+	    	String problem = checkManualNumbers(numbers);
+	    	if (problem != null) {
+	    		System.out.println("Invalid input! " + problem);
+	    		continue manualEntryLoop;
 	    	}
-	    		
-	    	//Check that entered numbers are within range:
-	    	for (int j = 0; j < NUMBER_COUNT; j ++) {
-    			if (numbers[j] > MAX_NUMBER || numbers[j] < 1) {
-    				System.out.println("Invalid input! All numbers must be in the range from 1 to 35!");
-    				continue manualEntryLoop;
-    			}	  
-    		}	
 	    	
 	    	//If all checks are passed, add numbers to manual entries array list.
 	    	manualEntries.add(numbers);
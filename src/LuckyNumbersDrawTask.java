@@ -0,0 +1,116 @@
+/*
+ * Author: Damian Curran
+ */
+
+import java.util.HashMap;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Fork/join task scoring a range of entries in a Lucky Numbers draw.
+ * Result is a map of memberId to the MemberPrize of that member's best entry in the range.
+ * Large ranges are split in two and the halves scored in parallel, then merged.
+ * A member's earlier entry is kept over a later one with the same prize,
+ * so the result is the same as scoring the whole range in order.
+ * @author Name: Damian Curran
+ */
+@SuppressWarnings("serial") //Serializable through ForkJoinTask, but never serialized.
+public class LuckyNumbersDrawTask extends RecursiveTask<HashMap<String, MemberPrize>> {
+
+	private final static int CHUNK_SIZE = 1 << 16;
+
+	private Competition comp;
+	private long winMask;
+	private int[] prizes;
+	private int from;
+	private int to;
+
+	/**
+    * Constructor of the LuckyNumbersDrawTask class.
+    * @param comp Competition holding the entries.
+    * @param winMask Winning numbers as a bitmask.
+    * @param prizes Prize for each number of matches, integer array.
+    * @param from Index of the first entry to score, inclusive.
+    * @param to Index of the last entry to score, exclusive.
+    */
+	public LuckyNumbersDrawTask(Competition comp, long winMask, int[] prizes, int from, int to) {
+		this.comp = comp;
+		this.winMask = winMask;
+		this.prizes = prizes;
+		this.from = from;
+		this.to = to;
+	}
+
+	/**
+    * Score the range in the calling thread, in entry order.
+    * A later entry must win a strictly higher prize to replace an earlier one.
+    * @return Returns map of memberId to MemberPrize, for members with a winning entry in the range.
+    */
+	public HashMap<String, MemberPrize> scoreRange() {
+
+		HashMap<String, MemberPrize> memberMaxPrizes = new HashMap<String, MemberPrize>();
+
+		for (int i = from; i < to; i ++) {
+			int matches = Long.bitCount(comp.getEntryNumberMask(i) & winMask);
+			if (matches > 1) {
+
+				String memberId = comp.getEntryMemberId(i);
+				MemberPrize mp = memberMaxPrizes.get(memberId);
+				if (mp == null) {
+					mp = new MemberPrize(memberId);
+					memberMaxPrizes.put(memberId, mp);
+				}
+
+				int prize = prizes[matches];
+				if (prize > mp.getMaxPrize()) {
+					mp.setMaxPrize(prize);
+					mp.setEntryId(comp.getEntryId(i));
+					mp.setEntryIndex(i);
+				}
+			}
+		}
+
+		return memberMaxPrizes;
+	}
+
+	/**
+    * Score the range, splitting it across the pool if it is larger than one chunk. Override.
+    * @return Returns map of memberId to MemberPrize, for members with a winning entry in the range.
+    */
+	@Override
+	protected HashMap<String, MemberPrize> compute() {
+
+		if (to - from <= CHUNK_SIZE) return scoreRange();
+
+		int middle = (from + to) >>> 1;
+		LuckyNumbersDrawTask first = new LuckyNumbersDrawTask(comp, winMask, prizes, from, middle);
+		LuckyNumbersDrawTask second = new LuckyNumbersDrawTask(comp, winMask, prizes, middle, to);
+		first.fork();
+		HashMap<String, MemberPrize> later = second.compute();
+		HashMap<String, MemberPrize> earlier = first.join();
+
+		return merge(earlier, later);
+	}
+
+	/*
+	 *  Helper method to merge the results of two neighbouring ranges into the larger map.
+	 *  Where both ranges hold a member, the later range wins only with a strictly higher prize.
+	 */
+	private static HashMap<String, MemberPrize> merge(HashMap<String, MemberPrize> earlier,
+			HashMap<String, MemberPrize> later) {
+
+		if (earlier.size() >= later.size()) {
+			for (MemberPrize mp : later.values()) {
+				MemberPrize kept = earlier.get(mp.getMemberId());
+				if (kept == null || mp.getMaxPrize() > kept.getMaxPrize()) earlier.put(mp.getMemberId(), mp);
+			}
+			return earlier;
+		}
+
+		for (MemberPrize mp : earlier.values()) {
+			MemberPrize kept = later.get(mp.getMemberId());
+			if (kept == null || mp.getMaxPrize() >= kept.getMaxPrize()) later.put(mp.getMemberId(), mp);
+		}
+		return later;
+	}
+
+}
@@ -0,0 +1,528 @@
+/*
+ * Author: Damian Curran
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Derived EntryStore keeping entries outside the heap, in a memory mapped file.
+ * Each entry is a fixed size record of number mask (with the entry type in the top bits),
+ * entry id, member slot, bill slot and prize. Bill and member ids are kept in an EntryNameTable.
+ * The file is mapped in segments, so it can grow past the 2GB limit of one mapping.
+ * Records written to the file outlive the program, so a competitions file only needs to
+ * hold the file name, entry count and name table to open the store again.
+ * A header holds the number of records written and whether any prize has been set.
+ * When the file has moved on since the competitions file was saved, the saved entries are
+ * copied to a new file rather than changed in place, as the file may belong to another save.
+ * The file moved away from is deleted once the competitions file is saved over, unless a
+ * competitions file saved under another name may still refer to it (see saved).
+ * @author Name: Damian Curran
+ */
+public class MappedEntryStore extends EntryStore implements Serializable {
+
+	private static final long serialVersionUID = -7037420051530797159L;
+
+	/**
+    * File name suffix of entries files.
+    */
+	public final static String FILE_SUFFIX = ".entries";
+
+	private final static int MAGIC = 0x53434E45; //"SCNE"
+	private final static int RECORD_SIZE = 24;
+	private final static int HEADER_SIZE = RECORD_SIZE;
+	private final static int SEGMENT_SHIFT = 20;
+	private final static int SEGMENT_RECORDS = 1 << SEGMENT_SHIFT;
+	private final static long SEGMENT_BYTES = (long) SEGMENT_RECORDS * RECORD_SIZE;
+
+	//Offsets within the header
+	private final static int HEADER_MAGIC = 0;
+	private final static int HEADER_COUNT = 4;
+	private final static int HEADER_PRIZES = 8;
+	private final static int HEADER_SHARED = 12; //Set once competitions files of different names refer to the file.
+
+	//Offsets within a record
+	private final static int MASK = 0;
+	private final static int ENTRY_ID = 8;
+	private final static int MEMBER = 12;
+	private final static int BILL = 16;
+	private final static int PRIZE = 20;
+
+	private String fileName;
+	private int size;
+	private EntryNameTable names;
+
+	//Not serialized, the file is mapped again after load (see readObject).
+	private transient FileChannel channel;
+	private transient MappedByteBuffer header;
+	private transient MappedByteBuffer[] segments;
+	private transient boolean newFileOnWrite; //File has moved on, and this store holds no entries yet.
+	private transient boolean created; //File created by this session, no saved competitions file refers to it yet.
+	private transient String supersededFile; //File the store was opened over, before moving to a new file.
+	private transient boolean supersededShared; //True if the superseded file may belong to another save.
+
+	/**
+    * Constructor of the MappedEntryStore class, creating a new entries file.
+    * @param fileName Name of the entries file, which must not already exist.
+    * @throws IOException if the file exists or cannot be created.
+    */
+	public MappedEntryStore(String fileName) throws IOException {
+
+		super();
+		this.fileName = fileName;
+		this.size = 0;
+		this.names = new EntryNameTable();
+		createFile();
+		this.created = true;
+
+	}
+
+	/*
+	 *  Private constructor for a store over an existing entries file, see open.
+	 */
+	private MappedEntryStore(String fileName, int size, EntryNameTable names) {
+
+		super();
+		this.fileName = fileName;
+		this.size = size;
+		this.names = names;
+
+	}
+
+	/**
+    * Open the store over an entries file written earlier.
+    * @param fileName Name of the entries file.
+    * @param size Number of entries the competition holds.
+    * @param names EntryNameTable saved with the competition.
+    * @param active True if the competition is active, so its entries have no prizes yet.
+    * @return Returns MappedEntryStore object.
+    * @throws IOException if the file cannot be opened or holds fewer entries than expected.
+    */
+	public static MappedEntryStore open(String fileName, int size, EntryNameTable names, boolean active)
+			throws IOException {
+
+		MappedEntryStore store = new MappedEntryStore(fileName, size, names);
+		store.mapFile();
+		if (store.header.getInt(HEADER_MAGIC) != MAGIC) throw new IOException("Not an entries file: " + fileName);
+
+		int written = store.header.getInt(HEADER_COUNT);
+		if (written < size) {
+			throw new IOException("Entries file " + fileName + " holds " + written + " entries, expected " + size);
+		}
+
+		boolean prizesSet = store.header.getInt(HEADER_PRIZES) != 0;
+		if (written > size || (active && prizesSet)) {
+			if (size == 0) {
+				store.newFileOnWrite = true;
+			} else {
+				store.copyToNewFile(active);
+			}
+		}
+
+		return store;
+	}
+
+	/**
+    * Get a name for a new entries file, that no file has yet.
+    * @param directory Directory for the file, null for the working directory.
+    * @param competitionId Id of the competition the entries belong to.
+    * @return Returns file name String.
+    */
+	public static String newFileName(String directory, int competitionId) {
+		return freeFileName(new File(directory, "competition" + competitionId).getPath());
+	}
+
+	/**
+    * Note that a competitions file referring to this store has been written.
+    * A file the store moved away from is then deleted, unless a competitions file may still refer to it.
+    * @param replacesLoaded True if the competitions file written replaces the one the store was
+    * loaded from, false if that file is kept alongside it.
+    */
+	public void saved(boolean replacesLoaded) {
+
+		if (!created && !replacesLoaded) {
+			header.putInt(HEADER_SHARED, 1);
+			header.force();
+		}
+
+		if (supersededFile != null && replacesLoaded && !supersededShared) {
+			if (!new File(supersededFile).delete()) {
+				System.out.println("Could not delete old entries file: " + supersededFile);
+			}
+		}
+		supersededFile = null;
+		created = false;
+
+	}
+
+	/**
+    * Close the store, deleting the entries file if this session created it and no saved
+    * competitions file refers to it, as when the session ends without saving.
+    * @throws IOException if the file cannot be closed.
+    */
+	public void discard() throws IOException {
+
+		close();
+		if (created && !new File(fileName).delete()) {
+			System.out.println("Could not delete unsaved entries file: " + fileName);
+		}
+
+	}
+
+	/**
+    * Get the name of the entries file.
+    * @return Returns file name String.
+    */
+	public String getFileName() {
+		return fileName;
+	}
+
+	/**
+    * Get the bills and members the entries belong to.
+    * @return Returns EntryNameTable object.
+    */
+	public EntryNameTable getNames() {
+		return names;
+	}
+
+	/**
+    * Get number of entries in the store. Override.
+    * @return Returns number of entries integer.
+    */
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+    * Get a copy of the entry at a slot. Override.
+    * @param slot Slot of the entry, integer.
+    * @return Returns new Entry object of the type added, with the values at the slot.
+    */
+	@Override
+	public Entry getEntry(int slot) {
+
+		MappedByteBuffer segment = segmentOf(slot);
+		int offset = offsetOf(slot);
+		int member = segment.getInt(offset + MEMBER);
+
+		return createEntry(segment.getLong(offset + MASK), segment.getInt(offset + ENTRY_ID),
+				names.getMemberId(member), names.getBillId(segment.getInt(offset + BILL)),
+				names.getMemberName(member), segment.getInt(offset + PRIZE));
+	}
+
+	/**
+    * Add an entry to the end of the store. Override.
+    * @param e Entry object to add.
+    */
+	@Override
+	public void add(Entry e) {
+
+		beforeWrite();
+		if ((size >>> SEGMENT_SHIFT) >= segments.length) {
+			try {
+				mapSegment(size >>> SEGMENT_SHIFT);
+			} catch (IOException ex) {
+				throw new UncheckedIOException("Could not grow entries file: " + fileName, ex);
+			}
+		}
+		size++;
+		store(size - 1, e);
+		header.putInt(HEADER_COUNT, size);
+
+	}
+
+	/**
+    * Store the values of an entry at a slot. Override.
+    * @param slot Slot of the entry, integer.
+    * @param e Entry object holding the new values.
+    */
+	@Override
+	public void set(int slot, Entry e) {
+
+		checkSlot(slot);
+		beforeWrite();
+		store(slot, e);
+
+	}
+
+	/**
+    * Get the entry id of the entry at a slot. Override.
+    * @param slot Slot of the entry, integer.
+    * @return Returns entry id integer.
+    */
+	@Override
+	public int getEntryId(int slot) {
+		return segmentOf(slot).getInt(offsetOf(slot) + ENTRY_ID);
+	}
+
+	/**
+    * Get the member id of the entry at a slot. Override.
+    * @param slot Slot of the entry, integer.
+    * @return Returns member id String, shared by all entries of the member.
+    */
+	@Override
+	public String getMemberId(int slot) {
+		return names.getMemberId(segmentOf(slot).getInt(offsetOf(slot) + MEMBER));
+	}
+
+	/**
+    * Get the numbers of the entry at a slot as a bitmask. Override.
+    * @param slot Slot of the entry, integer.
+    * @return Returns bitmask of the numbers, 0 if the entry has no numbers.
+    */
+	@Override
+	public long getNumberMask(int slot) {
+		return segmentOf(slot).getLong(offsetOf(slot) + MASK) & NUMBERS;
+	}
+
+	/**
+    * Get the prize of the entry at a slot. Override.
+    * @param slot Slot of the entry, integer.
+    * @return Returns prize integer.
+    */
+	@Override
+	public int getPrize(int slot) {
+		return segmentOf(slot).getInt(offsetOf(slot) + PRIZE);
+	}
+
+	/**
+    * Set the prize of the entry at a slot. Override.
+    * @param slot Slot of the entry, integer.
+    * @param p Prize, integer.
+    */
+	@Override
+	public void setPrize(int slot, int p) {
+
+		MappedByteBuffer segment = segmentOf(slot);
+		beforeWrite();
+		segment.putInt(offsetOf(slot) + PRIZE, p);
+		if (p != 0) header.putInt(HEADER_PRIZES, 1);
+
+	}
+
+	/**
+    * Write the mapped records and header to the file. Override.
+    * @throws IOException if the file cannot be written.
+    */
+	@Override
+	public void force() throws IOException {
+
+		for (MappedByteBuffer segment : segments) {
+			if (segment != null) segment.force();
+		}
+		header.force();
+
+	}
+
+	/**
+    * Close the entries file. Override.
+    * Entries can still be read, but no more can be added.
+    * @throws IOException if the file cannot be closed.
+    */
+	@Override
+	public void close() throws IOException {
+		if (channel != null) channel.close();
+	}
+
+	/*
+	 *  Helper method to write the values of an entry to the record at a slot.
+	 */
+	private void store(int slot, Entry e) {
+
+		int bill = names.billSlotFor(e.getBillId(), e.getMemberId(), e.getMemberName());
+		MappedByteBuffer segment = segmentOf(slot);
+		int offset = offsetOf(slot);
+
+		segment.putLong(offset + MASK, typedMask(e));
+		segment.putInt(offset + ENTRY_ID, e.getEntryId());
+		segment.putInt(offset + MEMBER, names.getBillMember(bill));
+		segment.putInt(offset + BILL, bill);
+		segment.putInt(offset + PRIZE, e.getPrize());
+		if (e.getPrize() != 0) header.putInt(HEADER_PRIZES, 1);
+
+	}
+
+	/*
+	 *  Helper method called before any change, to move to a new file first if the
+	 *  store was opened with no entries over a file that has moved on.
+	 */
+	private void beforeWrite() {
+
+		if (!newFileOnWrite) return;
+
+		try {
+			moveToNewFile().close();
+			newFileOnWrite = false;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not create entries file: " + fileName, e);
+		}
+
+	}
+
+	/*
+	 *  Helper method to create the entries file for this store and write an empty header.
+	 */
+	private void createFile() throws IOException {
+
+		channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE_NEW,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+		header.putInt(HEADER_MAGIC, MAGIC);
+		header.putInt(HEADER_COUNT, 0);
+		header.putInt(HEADER_PRIZES, 0);
+		segments = new MappedByteBuffer[0];
+
+	}
+
+	/*
+	 *  Helper method to open the existing entries file and map the segments holding the entries.
+	 *  All segments in use are mapped here, so reads never map and can come from any thread.
+	 */
+	private void mapFile() throws IOException {
+
+		channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ, StandardOpenOption.WRITE);
+		if (channel.size() < HEADER_SIZE + (long) size * RECORD_SIZE) {
+			throw new IOException("Entries file " + fileName + " is too short for " + size + " entries");
+		}
+		header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+		mapSegments();
+
+	}
+
+	/*
+	 *  Helper method to copy the entries of this store to a new file and use that from now on.
+	 *  Prizes are cleared if the competition is still active.
+	 */
+	private void copyToNewFile(boolean active) throws IOException {
+
+		FileChannel from = moveToNewFile();
+
+		long bytes = (long) size * RECORD_SIZE;
+		long copied = 0;
+		channel.position(HEADER_SIZE);
+		while (copied < bytes) {
+			copied = copied + from.transferTo(HEADER_SIZE + copied, bytes - copied, channel);
+		}
+		from.close();
+
+		mapSegments();
+		header.putInt(HEADER_COUNT, size);
+		for (int i = 0; i < size; i ++) {
+			if (active) {
+				segmentOf(i).putInt(offsetOf(i) + PRIZE, 0);
+			} else if (getPrize(i) != 0) {
+				header.putInt(HEADER_PRIZES, 1);
+			}
+		}
+
+	}
+
+	/*
+	 *  Helper method to create a new file for this store, noting the file it replaces.
+	 *  @return Returns the channel of the file replaced, for the caller to close.
+	 */
+	private FileChannel moveToNewFile() throws IOException {
+
+		FileChannel from = channel;
+		supersededFile = fileName;
+		supersededShared = header.getInt(HEADER_SHARED) != 0;
+		fileName = freeFileName(baseName(fileName));
+		createFile();
+		created = true;
+
+		return from;
+	}
+
+	/*
+	 *  Helper method to map every segment holding entries of this store.
+	 */
+	private void mapSegments() throws IOException {
+
+		segments = new MappedByteBuffer[0];
+		int noSegments = (int) (((long) size + SEGMENT_RECORDS - 1) >>> SEGMENT_SHIFT);
+		for (int k = 0; k < noSegments; k ++) {
+			mapSegment(k);
+		}
+
+	}
+
+	/*
+	 *  Helper method to map a segment of records, growing the file if needed.
+	 */
+	private void mapSegment(int k) throws IOException {
+
+		if (k >= segments.length) {
+			MappedByteBuffer[] grown = new MappedByteBuffer[k + 1];
+			System.arraycopy(segments, 0, grown, 0, segments.length);
+			segments = grown;
+		}
+		segments[k] = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + k * SEGMENT_BYTES, SEGMENT_BYTES);
+
+	}
+
+	/*
+	 *  Helper method to get the mapped segment holding a slot, checking the slot is in the store.
+	 */
+	private MappedByteBuffer segmentOf(int slot) {
+		checkSlot(slot);
+		return segments[slot >>> SEGMENT_SHIFT];
+	}
+
+	/*
+	 *  Helper method to get the offset of a slot's record within its segment.
+	 */
+	private static int offsetOf(int slot) {
+		return (slot & (SEGMENT_RECORDS - 1)) * RECORD_SIZE;
+	}
+
+	/*
+	 *  Helper method to check a slot is in the store, as a list would.
+	 */
+	private void checkSlot(int slot) {
+		if (slot < 0 || slot >= size) {
+			throw new IndexOutOfBoundsException("Slot " + slot + " out of bounds for size " + size);
+		}
+	}
+
+	/*
+	 *  Helper method to get the name of an entries file without its time stamp and suffix.
+	 */
+	private static String baseName(String fileName) {
+
+		int dash = fileName.lastIndexOf('-');
+		if (dash > fileName.lastIndexOf(File.separatorChar)) return fileName.substring(0, dash);
+
+		return fileName;
+	}
+
+	/*
+	 *  Helper method to add a time stamp and suffix to a base name, giving a file name not yet used.
+	 */
+	private static String freeFileName(String base) {
+
+		long stamp = System.currentTimeMillis();
+		while (new File(base + "-" + stamp + FILE_SUFFIX).exists()) {
+			stamp++;
+		}
+
+		return base + "-" + stamp + FILE_SUFFIX;
+	}
+
+	/*
+	 *  Custom deserialization hook. The file mapping is transient, so map the file again
+	 *  once the name table and entry count have been read back from a saved file.
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		mapFile();
+	}
+
+}
@@ -0,0 +1,158 @@
+/*
+ * Author: Damian Curran
+ */
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Random;
+
+/**
+ * Draw of winning entries in which no member wins more than once.
+ * Each winner is drawn uniformly from the entries of members who have not yet won.
+ * An entry is first drawn from all entries and redrawn while its member has won, up to
+ * MAX_ATTEMPTS times. After that the entries are grouped by member once, and winners are
+ * drawn from the remaining members' entries directly, so the work for each winner is bounded.
+ * Results depend only on the random generator and the entries in order, so a seeded
+ * generator (as in testing mode) always gives the same winners for the same entries.
+ * @author Name: Damian Curran
+ */
+public class MemberExclusiveDraw {
+
+	private final static int MAX_ATTEMPTS = 64;
+
+	private Competition comp;
+	private Random random;
+	private HashSet<String> winners;
+
+	//Entries grouped by member, built when drawing by attempts stops paying off.
+	private HashMap<String, Integer> memberSlots;
+	private int[] memberStarts; //First position of each member's entries in memberEntries.
+	private int[] memberEntries; //Entry indexes, grouped by member and in entry order within a member.
+	private int[] remainingEntries; //Fenwick tree of entry counts of members who have not yet won.
+	private int noRemaining;
+
+	/**
+    * Constructor of the MemberExclusiveDraw class.
+    * @param comp Competition holding the entries.
+    * @param random Random generator for the draw.
+    */
+	public MemberExclusiveDraw(Competition comp, Random random) {
+		this.comp = comp;
+		this.random = random;
+		this.winners = new HashSet<String>();
+	}
+
+	/**
+    * Draw the next winning entry. The member of the entry cannot win again in this draw.
+    * @return Returns index of the winning entry, -1 if every member with entries has won.
+    */
+	public int nextWinner() {
+
+		int n = comp.getNoEntries();
+		if (n == 0) return -1;
+
+		if (memberSlots == null) {
+			for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt ++) {
+				int index = random.nextInt(n);
+				if (winners.add(comp.getEntryMemberId(index))) return index;
+			}
+			groupByMember();
+		}
+
+		if (noRemaining == 0) return -1;
+
+		int member = findMember(random.nextInt(noRemaining));
+		int index = memberEntries[memberStarts[member] + random.nextInt(memberStarts[member + 1] - memberStarts[member])];
+		removeMember(member);
+		winners.add(comp.getEntryMemberId(index));
+
+		return index;
+	}
+
+	/*
+	 *  Helper method to group entry indexes by member, counting only members who have not yet won.
+	 */
+	private void groupByMember() {
+
+		int n = comp.getNoEntries();
+		memberSlots = new HashMap<String, Integer>();
+		int[] entryMembers = new int[n];
+		for (int i = 0; i < n; i ++) {
+			String memberId = comp.getEntryMemberId(i);
+			Integer member = memberSlots.get(memberId);
+			if (member == null) {
+				member = memberSlots.size();
+				memberSlots.put(memberId, member);
+			}
+			entryMembers[i] = member;
+		}
+
+		int noMembers = memberSlots.size();
+		memberStarts = new int[noMembers + 1];
+		for (int i = 0; i < n; i ++) {
+			memberStarts[entryMembers[i] + 1]++;
+		}
+		for (int m = 0; m < noMembers; m ++) {
+			memberStarts[m + 1] = memberStarts[m + 1] + memberStarts[m];
+		}
+
+		memberEntries = new int[n];
+		int[] next = new int[noMembers];
+		for (int i = 0; i < n; i ++) {
+			int m = entryMembers[i];
+			memberEntries[memberStarts[m] + next[m]] = i;
+			next[m]++;
+		}
+
+		remainingEntries = new int[noMembers + 1];
+		noRemaining = 0;
+		for (int m = 0; m < noMembers; m ++) {
+			remainingEntries[m + 1] = memberStarts[m + 1] - memberStarts[m];
+		}
+		for (String memberId : winners) {
+			Integer member = memberSlots.get(memberId);
+			if (member != null) remainingEntries[member + 1] = 0;
+		}
+		for (int k = 1; k <= noMembers; k ++) {
+			noRemaining = noRemaining + remainingEntries[k];
+		}
+		for (int k = 1; k <= noMembers; k ++) {
+			int parent = k + (k & -k);
+			if (parent <= noMembers) remainingEntries[parent] = remainingEntries[parent] + remainingEntries[k];
+		}
+
+	}
+
+	/*
+	 *  Helper method to find the member holding the r-th remaining entry, counting from 0
+	 *  through the remaining members in order.
+	 */
+	private int findMember(int r) {
+
+		int position = 0;
+		int step = Integer.highestOneBit(remainingEntries.length - 1);
+		for (; step > 0; step = step >> 1) {
+			int next = position + step;
+			if (next < remainingEntries.length && remainingEntries[next] <= r) {
+				position = next;
+				r = r - remainingEntries[next];
+			}
+		}
+
+		return position;
+	}
+
+	/*
+	 *  Helper method to take a member's entries out of the remaining entries.
+	 */
+	private void removeMember(int member) {
+
+		int count = memberStarts[member + 1] - memberStarts[member];
+		for (int k = member + 1; k < remainingEntries.length; k = k + (k & -k)) {
+			remainingEntries[k] = remainingEntries[k] - count;
+		}
+		noRemaining = noRemaining - count;
+
+	}
+
+}
@@ -14,6 +14,7 @@ public class MemberPrize implements Serializable {
 	private String memberId;
 	private int maxPrize;
 	private int entryId;
+	private int entryIndex; //Index of the entry in the competition, for lookup without a search.
 	
 	/**
     * Constructor of the MemberPrize class.
@@ -24,6 +25,7 @@ public class MemberPrize implements Serializable {
 		this.memberId = memberId;
 		this.maxPrize = 0;
 		this.entryId = 0;
+		this.entryIndex = 0;
 		
 	}
 	
@@ -52,6 +54,14 @@ public class MemberPrize implements Serializable {
 		return this.entryId;
 	}
 
+	/**
+    * Get entry index.
+    * @return Returns index integer.
+    */
+	public int getEntryIndex() {
+		return this.entryIndex;
+	}
+
 	/**
     * Set max prize.
     * @param mp Maximum prize for that member in the current competition, integer.
@@ -68,5 +78,13 @@ public class MemberPrize implements Serializable {
 		this.entryId = eid;
 	}
 	
+	/**
+    * Set entry index.
+    * @param index Index of the entry associated with max prize in the competition, integer.
+    */
+	public void setEntryIndex(int index) {
+		this.entryIndex = index;
+	}
+	
 
 }
@@ -2,8 +2,11 @@
  * Author: Damian Curran
  */
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
-import java.util.Arrays;
 
 /**
  * NumbersEntry class, derived from Entry.
@@ -11,8 +14,17 @@ import java.util.Arrays;
  */
 public class NumbersEntry extends Entry implements Serializable {
 
-	private int[] numbers;
+	private static final long serialVersionUID = -4717429927160115563L;
+	
+	//Numbers are held only as a bitmask, bit n set if number n is in the set.
+	//Numbers are all different, so the set gives them back in ascending order.
+	private long numberMask;
 	private final static int NUMBER_COUNT = 7;
+	
+	//Serialized form is unchanged, the numbers as an int array (see writeObject).
+	private static final ObjectStreamField[] serialPersistentFields = {
+		new ObjectStreamField("numbers", int[].class)
+	};
 		
 	/**
 	* Constructor of the NumbersEntry class.
@@ -36,8 +48,7 @@ public class NumbersEntry extends Entry implements Serializable {
     */
 	public NumbersEntry(int eid, String mid, String bid, int[] n, String mName) {
 		super(eid, mid, bid, mName);
-		Arrays.sort(n);
-		this.numbers = n;
+		this.numberMask = toMask(n);
 		
 	}
 	
@@ -47,15 +58,57 @@ public class NumbersEntry extends Entry implements Serializable {
 	* @return The integer at the index i in the number set of the NumbersEntry object.
 	*/
 	public int getNumber(int i) {
-		return this.numbers[i];
+		
+		long mask = this.numberMask;
+		for (int j = 0; j < i; j++) {
+			mask = mask & (mask - 1);
+		}
+		
+		return Long.numberOfTrailingZeros(mask);
+	}
+
+	/**
+	* Gets the numbers of the entry as an integer array, in ascending order.
+	* @return Integer array of the numbers, null if the entry has no numbers set.
+	*/
+	public int[] getNumbers() {
+		
+		if (this.numberMask == 0) return null;
+		
+		int[] n = new int[Long.bitCount(this.numberMask)];
+		long mask = this.numberMask;
+		for (int j = 0; j < n.length; j++) {
+			n[j] = Long.numberOfTrailingZeros(mask);
+			mask = mask & (mask - 1);
+		}
+		
+		return n;
 	}
 
 	/**
 	* Sets the numbers for the NumbersEntry based on input integer array.
+	* Numbers are kept in ascending order, whatever the order given.
 	* @param n Integer array.
 	*/
 	public void setNumbers(int[] n) {
-		this.numbers = n;
+		this.numberMask = toMask(n);
+	}
+	
+	/**
+	* Sets the numbers for the NumbersEntry from a bitmask, bit n set if number n is in the set.
+	* @param mask Long bitmask of the numbers.
+	*/
+	public void setNumberMask(long mask) {
+		this.numberMask = mask;
+	}
+	
+	/**
+	* Gets the numbers of the entry as a bitmask, bit n is set if number n is in the set. Overriden.
+	* @return Long bitmask of the numbers.
+	*/
+	@Override
+	public long getNumberMask() {
+		return this.numberMask;
 	}
 	
 	/**
@@ -65,27 +118,59 @@ public class NumbersEntry extends Entry implements Serializable {
 	* @return Integer of how many numbers in the two parameter objects are the same.
 	*/
 	public static int noMatching(Entry e1, Entry e2) {
-		
-		int matches = 0;
-		
-		for (int i = 0; i < NUMBER_COUNT; i ++) {
-			for (int j = 0; j < NUMBER_COUNT; j ++) {
-				if (e1.getNumber(i) == e2.getNumber(j)) {
-					matches++;
-				}
-			}
-		}
-		
-		return matches;
+		return Long.bitCount(e1.getNumberMask() & e2.getNumberMask());
 	}
 
 	/**
     * Print number array to the console.
     */
 	public void printNumbers() {
+		ReportWriter report = new ReportWriter();
+		this.appendNumbers(report);
+		report.flush();
+	}
+	
+	/**
+    * Append number array to a report, each number right aligned in 3 characters.
+    * @param report ReportWriter to append to.
+    */
+	@Override
+	public void appendNumbers(ReportWriter report) {
 		for (int j = 0; j < NUMBER_COUNT; j++) {
-			System.out.printf("%3s", this.getNumber(j));	
+			report.appendRight(this.getNumber(j), 3);	
 		}
 	}
 	
+	/*
+	 *  Helper method to convert a number set to a bitmask.
+	 *  Numbers are 1 to 35, so the set fits in one long.
+	 */
+	private static long toMask(int[] n) {
+		
+		long mask = 0;
+		if (n == null) return mask;
+		for (int i = 0; i < n.length; i ++) {
+			mask = mask | (1L << n[i]);
+		}
+		
+		return mask;
+	}
+	
+	/*
+	 *  Custom serialization hook. Writes the numbers as the int array earlier versions held.
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		ObjectOutputStream.PutField fields = out.putFields();
+		fields.put("numbers", getNumbers());
+		out.writeFields();
+	}
+	
+	/*
+	 *  Custom deserialization hook. Numbers are read as an int array and kept as a bitmask.
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		ObjectInputStream.GetField fields = in.readFields();
+		this.numberMask = toMask((int[]) fields.get("numbers", null));
+	}
+	
 }
@@ -13,22 +13,37 @@ import java.util.Scanner;
  */
 public class RandomPickCompetition extends Competition implements Serializable {
 	
+	private static final long serialVersionUID = -1470148104582107442L;
+
 	private final int FIRST_PRIZE = 50000;
 	private final int SECOND_PRIZE = 5000;
 	private final int THIRD_PRIZE = 1000;
 	private final int[] prizes = {FIRST_PRIZE, SECOND_PRIZE, THIRD_PRIZE};
-	private final int MAX_WINNING_ENTRIES = 3;
 	private static final String compType = "RandomPickCompetition"; 
 	
 	/**
     * Constructor of the RandomPickCompetition class.
+    * Entries are kept as one range per bill, see RangeEntryStore.
     * @param n The name of new competition object, a String.
     * @param id The id of the new object, int.
     * @param tmode Testing mode boolean, true if the object is created whilst in 'Testing mode'.
     */
 	public RandomPickCompetition(String n, int id, boolean tmode) {
 		
-		super(n, id, tmode);
+		super(n, id, tmode, new RangeEntryStore());
+
+	}
+	
+	/**
+    * Overloaded constructor of the RandomPickCompetition class, keeping entries in the given store.
+    * @param n The name of new competition object, a String.
+    * @param id The id of the new object, int.
+    * @param tmode Testing mode boolean, true if the object is created whilst in 'Testing mode'.
+    * @param store EntryStore object holding the entries, which may already hold some.
+    */
+	public RandomPickCompetition(String n, int id, boolean tmode, EntryStore store) {
+		
+		super(n, id, tmode, store);
 
 	}
 	
@@ -51,33 +66,87 @@ public class RandomPickCompetition extends Competition implements Serializable {
 	@Override
 	public void addEntries(Bill b, String memberName, Scanner keyboard) {
 		
-    	System.out.println("This bill (" + b.getAmountString()
-    			+ ") is eligible for " + b.getNoEntriesString()
-    			+ " entries.");
-    	
+		ArrayList<int[]> manualEntries = readManualEntries(b, keyboard);
+		int firstNewEntry = this.addEntries(b, memberName, manualEntries);
+		printNewEntries(firstNewEntry, b.getNoEntries());
+		
+	}
+	
+	/**
+    * Logic for adding entries from a bill without user input. Override.
+    * Automatically generates the number of new Entry objects permitted by the bill.
+    * @param b Bill object to which the new entries will be assigned.
+    * @param memberName String of member name associated with the Bill.
+    */
+	@Override
+	public void addEntries(Bill b, String memberName) {
+		this.addEntries(b, memberName, new ArrayList<int[]>());
+	}
+	
+	/**
+    * Logic for adding entries from a bill, once read. Override.
+    * Random pick entries have no numbers, so there are never manual entries.
+    * @param b Bill object to which the new entries will be assigned.
+    * @param memberName String of member name associated with the Bill.
+    * @param manualEntries List of manual number sets, empty for this competition.
+    * @return Returns the entry id of the first entry added, the rest following on from it.
+    */
+	@Override
+	public int addEntries(Bill b, String memberName, ArrayList<int[]> manualEntries) {
+		
     	int number = b.getNoEntries();
     	String memberId = b.getMemberId();
     	String billId = b.getBillId();
 			
-		int firstNewEntry = this.getNoEntries() + 1;
-
-		System.out.println("The following entries have been automatically generated:");
+		//Reserve the entry ids, so other tills can add theirs at the same time:
+		int firstNewEntry = this.reserveEntryIds(number);
 		
-		//Construct new entry object and add to competition, the number of times provided for in the bill:	
-		for (int i = firstNewEntry; i < firstNewEntry + number; i++) {
-			
-			Entry e = new Entry(i, memberId, billId, memberName);
-			this.addEntry(e);
-			System.out.print("Entry ID: ");
-			System.out.printf("%-6d%n", e.getEntryId());
-
+		//Add the number of entries provided for in the bill, as one run:	
+		this.addEntryRange(firstNewEntry, number, memberId, billId, memberName);
+		
+		return firstNewEntry;
+	}
+	
+	/**
+    * Tell the user how many entries a bill gives, as there is nothing to ask for. Override.
+    * @param b Bill object the entries will be added from.
+    * @param keyboard Scanner object used for user input, unused.
+    * @return Returns an empty list of manual number sets.
+    */
+	@Override
+	public ArrayList<int[]> readManualEntries(Bill b, Scanner keyboard) {
+		
+    	System.out.println("This bill (" + b.getAmountString()
+    			+ ") is eligible for " + b.getNoEntriesString()
+    			+ " entries.");
+    	
+		return new ArrayList<int[]>();
+	}
+	
+	/**
+    * Print entries just added from a bill to the console. Override.
+    * @param firstEntryId Entry id of the first entry added, integer.
+    * @param count Number of entries added, integer.
+    */
+	@Override
+	public void printNewEntries(int firstEntryId, int count) {
+		
+		ReportWriter report = new ReportWriter();
+		report.append("The following entries have been automatically generated:").newLine();
+		
+		for (int i = firstEntryId; i < firstEntryId + count; i++) {
+			report.append("Entry ID: ").appendLeft(i, 6).newLine();
 		}
+		report.flush();
 		
 	}
 	
 	/**
     * Control logic for drawing winners for the competition. Override.
-    * Winning Entries are random unless the competition is in testing mode.
+    * Each prize goes to a different member, drawn from the entries of members who have
+    * not yet won (see MemberExclusiveDraw). Prizes are left unawarded once every member has won.
+    * Winning Entries are random unless the competition is in testing mode, where the draw is
+    * seeded with the competition id, so the same entries always give the same winners.
     */
 	@Override
 	public void drawWinners() {
@@ -90,49 +159,14 @@ public class RandomPickCompetition extends Competition implements Serializable {
 			randomGenerator = new Random();
 		}
 		
-		/* 
-		 * Competition policy prevents one member from receiving more than one prize.
-		 * Create list of unique member IDs with entries in the competition.
-		 * Check list as entries are drawn to ensure no member wins more than once.
-		 */
-
-		ArrayList<String> remainingContestantIds = getUniqueMemberIds();
-		
-		//Draw winners
-		int winningEntryCount = 0;
-		while (winningEntryCount < MAX_WINNING_ENTRIES) {
+		//Draw winners, one prize per member
+		MemberExclusiveDraw draw = new MemberExclusiveDraw(this, randomGenerator);
+		for (int i = 0; i < prizes.length; i ++) {
 			
-			int winningEntryIndex = randomGenerator.nextInt(this.getNoEntries());
-
-			Entry winningEntry = this.getEntryFromIndex(winningEntryIndex);
-			
-			boolean notYetWon;
-			
-			//Check if member Id has won already, and update 'notYetWon' boolean
-			if (remainingContestantIds.contains(winningEntry.getMemberId())) {
-				notYetWon = true;
-			} else {
-				notYetWon = false;
-			}
+			int winningEntryIndex = draw.nextWinner();
+			if (winningEntryIndex < 0) break; //Every member has won
+			this.setEntryPrize(winningEntryIndex, prizes[i]);
 			
-			if (winningEntry.getPrize() == 0) {
-				
-				//Member will only be awarded prize if they have not yet won.
-				
-				if (notYetWon) {
-					
-					int currentPrize = prizes[winningEntryCount];
-					winningEntry.setPrize(currentPrize);
-					
-					//Remove member who just won from the remaining contestants list: 
-					int index = remainingContestantIds.indexOf(winningEntry.getMemberId());
-					remainingContestantIds.remove(index);		
-					
-				}
-				
-				winningEntryCount++;
-			}			
-
 		}
 		
 	}
@@ -144,34 +178,21 @@ public class RandomPickCompetition extends Competition implements Serializable {
 	public void printWinners() {
 		
 		printCompetitionDetails();
-		System.out.println("Winning entries:");
+		ReportWriter report = new ReportWriter();
+		report.append("Winning entries:").newLine();
 		for (int i = 0; i < this.getNoEntries(); i ++) {
 			
-			Entry e = this.getEntryFromIndex(i);
-			if (e.getPrize() != 0) {
-				System.out.printf("Member ID: %2s, Member Name: %2s, Entry ID: %-1d, Prize: %-5d%n",
-						e.getMemberId(), e.getMemberName(), e.getEntryId(), e.getPrize());
+			if (this.getEntryPrize(i) != 0) {
+				Entry e = this.getEntryFromIndex(i);
+				report.append("Member ID: ").appendRight(e.getMemberId(), 2)
+						.append(", Member Name: ").appendRight(e.getMemberName(), 2)
+						.append(", Entry ID: ").append(e.getEntryId())
+						.append(", Prize: ").appendLeft(e.getPrize(), 5).newLine();
 			}
 			
 		}
+		report.flush();
 		
 	}
-
-	/*
-	 *  Helper method to generate an array of unique memberIds with entries in the competition.
-	 *  @return ArrayList of member Id Strings.
-	 */
-	private ArrayList<String> getUniqueMemberIds() {
-		
-		ArrayList<String> uniqueMemberIds = new ArrayList<String>();
-		for (int i = 0; i < this.getNoEntries(); i ++) {
-			Entry e = this.getEntryFromIndex(i);
-			if (!uniqueMemberIds.contains(e.getMemberId())) {
-				uniqueMemberIds.add(e.getMemberId());
-			}
-		}
-		
-		return uniqueMemberIds;
-	}
 		
 }
\ No newline at end of file
@@ -0,0 +1,253 @@
+/*
+ * Author: Damian Curran
+ */
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Derived EntryStore keeping plain entries (entries without numbers) as runs.
+ * Entries from one bill with consecutive ids are kept as a single range record of
+ * first slot, first entry id and bill slot, so adding a bill's entries takes constant time.
+ * The bill slot leads to the bill id and member in an EntryNameTable.
+ * Prizes are few, so they are kept in a map by slot rather than per entry.
+ * An entry's range is found by binary search on the first slots of the ranges.
+ * Entries are only changed through their prize once added.
+ * @author Name: Damian Curran
+ */
+public class RangeEntryStore extends EntryStore implements Serializable {
+
+	private static final long serialVersionUID = 341613221747257957L;
+	private final static int INITIAL_CAPACITY = 256;
+
+	private int size;
+	private int noRanges;
+	private int[] rangeStarts;
+	private int[] rangeFirstIds;
+	private int[] rangeBills;
+	private EntryNameTable names;
+	private HashMap<Integer, Integer> prizes;
+
+	//Range found by the last lookup, as entries are mostly read in order.
+	//Not serialized, lookups start from the first range after load.
+	private transient int lastRange;
+
+	/**
+    * Constructor of the RangeEntryStore class.
+    */
+	public RangeEntryStore() {
+
+		super();
+		this.size = 0;
+		this.noRanges = 0;
+		this.rangeStarts = new int[INITIAL_CAPACITY];
+		this.rangeFirstIds = new int[INITIAL_CAPACITY];
+		this.rangeBills = new int[INITIAL_CAPACITY];
+		this.names = new EntryNameTable();
+		this.prizes = new HashMap<Integer, Integer>();
+
+	}
+
+	/**
+    * Get number of entries in the store. Override.
+    * @return Returns number of entries integer.
+    */
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+    * Get a copy of the entry at a slot. Override.
+    * @param slot Slot of the entry, integer.
+    * @return Returns new Entry object with the values at the slot.
+    */
+	@Override
+	public Entry getEntry(int slot) {
+
+		int range = rangeOf(slot);
+		int member = names.getBillMember(rangeBills[range]);
+
+		return createEntry(0, rangeFirstIds[range] + slot - rangeStarts[range], names.getMemberId(member),
+				names.getBillId(rangeBills[range]), names.getMemberName(member), getPrize(slot));
+	}
+
+	/**
+    * Add an entry to the end of the store. Override.
+    * @param e Entry object to add, which must be a plain entry.
+    */
+	@Override
+	public void add(Entry e) {
+
+		if (e instanceof NumbersEntry) throw new IllegalArgumentException("Entries with numbers cannot be kept as ranges");
+
+		addRange(e.getEntryId(), 1, e.getMemberId(), e.getBillId(), e.getMemberName());
+		if (e.getPrize() != 0) setPrize(size - 1, e.getPrize());
+
+	}
+
+	/**
+    * Add a run of plain entries with consecutive ids from one bill to the end of the store. Override.
+    * The run joins the last range if it carries on from it.
+    * @param firstEntryId Entry id of the first entry, integer.
+    * @param count Number of entries, integer.
+    * @param memberId Member id String.
+    * @param billId Bill id String.
+    * @param memberName Member name String.
+    */
+	@Override
+	public void addRange(int firstEntryId, int count, String memberId, String billId, String memberName) {
+
+		if (count <= 0) return;
+
+		int bill = names.billSlotFor(billId, memberId, memberName);
+		int last = noRanges - 1;
+		if (last < 0 || rangeBills[last] != bill || rangeFirstIds[last] + (size - rangeStarts[last]) != firstEntryId) {
+			if (noRanges == rangeStarts.length) grow();
+			rangeStarts[noRanges] = size;
+			rangeFirstIds[noRanges] = firstEntryId;
+			rangeBills[noRanges] = bill;
+			noRanges++;
+		}
+		size = size + count;
+
+	}
+
+	/**
+    * Store the values of an entry at a slot. Override.
+    * Only the prize can differ from the entry already at the slot.
+    * @param slot Slot of the entry, integer.
+    * @param e Entry object holding the new values.
+    */
+	@Override
+	public void set(int slot, Entry e) {
+
+		Entry stored = getEntry(slot);
+		if (e instanceof NumbersEntry || e.getEntryId() != stored.getEntryId()
+				|| !e.getBillId().equals(stored.getBillId()) || !e.getMemberId().equals(stored.getMemberId())) {
+			throw new IllegalArgumentException("Only the prize of an entry kept as a range can be changed");
+		}
+		setPrize(slot, e.getPrize());
+
+	}
+
+	/**
+    * Get the entry id of the entry at a slot. Override.
+    * @param slot Slot of the entry, integer.
+    * @return Returns entry id integer.
+    */
+	@Override
+	public int getEntryId(int slot) {
+
+		int range = rangeOf(slot);
+		return rangeFirstIds[range] + slot - rangeStarts[range];
+	}
+
+	/**
+    * Get the member id of the entry at a slot. Override.
+    * @param slot Slot of the entry, integer.
+    * @return Returns member id String, shared by all entries of the member.
+    */
+	@Override
+	public String getMemberId(int slot) {
+		return names.getMemberId(names.getBillMember(rangeBills[rangeOf(slot)]));
+	}
+
+	/**
+    * Get the numbers of the entry at a slot as a bitmask. Override.
+    * @param slot Slot of the entry, integer.
+    * @return Returns 0, as entries kept as ranges have no numbers.
+    */
+	@Override
+	public long getNumberMask(int slot) {
+
+		checkSlot(slot);
+		return 0;
+	}
+
+	/**
+    * Get the prize of the entry at a slot. Override.
+    * @param slot Slot of the entry, integer.
+    * @return Returns prize integer.
+    */
+	@Override
+	public int getPrize(int slot) {
+
+		checkSlot(slot);
+		if (prizes.isEmpty()) return 0;
+
+		Integer p = prizes.get(slot);
+		return (p == null) ? 0 : p;
+	}
+
+	/**
+    * Set the prize of the entry at a slot. Override.
+    * @param slot Slot of the entry, integer.
+    * @param p Prize, integer.
+    */
+	@Override
+	public void setPrize(int slot, int p) {
+
+		checkSlot(slot);
+		if (p == 0) {
+			prizes.remove(slot);
+		} else {
+			prizes.put(slot, p);
+		}
+
+	}
+
+	/*
+	 *  Helper method to find the range holding a slot.
+	 *  Checks the range of the last lookup and the one after it first, then searches.
+	 */
+	private int rangeOf(int slot) {
+
+		checkSlot(slot);
+		int range = lastRange;
+		if (range < noRanges && rangeStarts[range] <= slot) {
+			if (range + 1 == noRanges || slot < rangeStarts[range + 1]) return range;
+			if (range + 2 == noRanges || slot < rangeStarts[range + 2]) {
+				lastRange = range + 1;
+				return range + 1;
+			}
+		}
+
+		int low = 0;
+		int high = noRanges - 1;
+		while (low < high) {
+			int middle = (low + high + 1) >>> 1;
+			if (rangeStarts[middle] <= slot) {
+				low = middle;
+			} else {
+				high = middle - 1;
+			}
+		}
+		lastRange = low;
+
+		return low;
+	}
+
+	/*
+	 *  Helper method to grow the range columns by half again.
+	 */
+	private void grow() {
+
+		int capacity = rangeStarts.length + (rangeStarts.length >> 1);
+		rangeStarts = Arrays.copyOf(rangeStarts, capacity);
+		rangeFirstIds = Arrays.copyOf(rangeFirstIds, capacity);
+		rangeBills = Arrays.copyOf(rangeBills, capacity);
+
+	}
+
+	/*
+	 *  Helper method to check a slot is in the store, as a list would.
+	 */
+	private void checkSlot(int slot) {
+		if (slot < 0 || slot >= size) {
+			throw new IndexOutOfBoundsException("Slot " + slot + " out of bounds for size " + size);
+		}
+	}
+
+}
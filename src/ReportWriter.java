@@ -0,0 +1,177 @@
+/*
+ * Author: Damian Curran
+ */
+
+import java.io.PrintStream;
+
+/**
+ * Buffered writer for console reports such as entry listings and winner lists.
+ * Text is collected in a StringBuilder and written to the stream in large blocks,
+ * rather than one synchronized print per field. Padding methods give the same text as
+ * the equivalent printf widths, eg appendLeft(x, 6) as "%-6s" and appendRight(x, 3) as "%3s".
+ * Callers must flush before anything else is printed, so output stays in order.
+ * @author Name: Damian Curran
+ */
+public class ReportWriter {
+
+	private final static int FLUSH_SIZE = 1 << 16;
+	private final static String LINE_SEPARATOR = System.lineSeparator();
+
+	private PrintStream out;
+	private StringBuilder buffer;
+
+	/**
+    * Constructor of the ReportWriter class, writing to the console.
+    */
+	public ReportWriter() {
+		this(System.out);
+	}
+
+	/**
+    * Overloaded constructor of the ReportWriter class, writing to the given stream.
+    * @param out PrintStream to write to.
+    */
+	public ReportWriter(PrintStream out) {
+		this.out = out;
+		this.buffer = new StringBuilder(FLUSH_SIZE + 256);
+	}
+
+	/**
+    * Append a String.
+    * @param s String to append.
+    * @return Returns this ReportWriter.
+    */
+	public ReportWriter append(String s) {
+		buffer.append(s);
+		return checkFlush();
+	}
+
+	/**
+    * Append a character.
+    * @param c Character to append.
+    * @return Returns this ReportWriter.
+    */
+	public ReportWriter append(char c) {
+		buffer.append(c);
+		return checkFlush();
+	}
+
+	/**
+    * Append an integer.
+    * @param i Integer to append.
+    * @return Returns this ReportWriter.
+    */
+	public ReportWriter append(int i) {
+		buffer.append(i);
+		return checkFlush();
+	}
+
+	/**
+    * Append a String padded with spaces on the right to a minimum width, as "%-<width>s".
+    * @param s String to append.
+    * @param width Minimum width, integer.
+    * @return Returns this ReportWriter.
+    */
+	public ReportWriter appendLeft(String s, int width) {
+		int start = buffer.length();
+		buffer.append(s);
+		pad(width - (buffer.length() - start));
+		return checkFlush();
+	}
+
+	/**
+    * Append an integer padded with spaces on the right to a minimum width, as "%-<width>d".
+    * @param i Integer to append.
+    * @param width Minimum width, integer.
+    * @return Returns this ReportWriter.
+    */
+	public ReportWriter appendLeft(int i, int width) {
+		int start = buffer.length();
+		buffer.append(i);
+		pad(width - (buffer.length() - start));
+		return checkFlush();
+	}
+
+	/**
+    * Append a String padded with spaces on the left to a minimum width, as "%<width>s".
+    * @param s String to append.
+    * @param width Minimum width, integer.
+    * @return Returns this ReportWriter.
+    */
+	public ReportWriter appendRight(String s, int width) {
+		pad(width - String.valueOf(s).length());
+		buffer.append(s);
+		return checkFlush();
+	}
+
+	/**
+    * Append an integer padded with spaces on the left to a minimum width, as "%<width>d".
+    * @param i Integer to append.
+    * @param width Minimum width, integer.
+    * @return Returns this ReportWriter.
+    */
+	public ReportWriter appendRight(int i, int width) {
+		pad(width - digits(i));
+		buffer.append(i);
+		return checkFlush();
+	}
+
+	/**
+    * Append the platform line separator, as println or "%n".
+    * @return Returns this ReportWriter.
+    */
+	public ReportWriter newLine() {
+		buffer.append(LINE_SEPARATOR);
+		return checkFlush();
+	}
+
+	/**
+    * Write any buffered text to the stream.
+    */
+	public void flush() {
+
+		if (buffer.length() > 0) {
+			out.print(buffer);
+			buffer.setLength(0);
+		}
+		out.flush();
+
+	}
+
+	/*
+	 *  Helper method to write the buffer once it holds a full block.
+	 */
+	private ReportWriter checkFlush() {
+		if (buffer.length() >= FLUSH_SIZE) flush();
+		return this;
+	}
+
+	/*
+	 *  Helper method to append a number of spaces, none if the count is not positive.
+	 */
+	private void pad(int count) {
+		for (int i = 0; i < count; i ++) {
+			buffer.append(' ');
+		}
+	}
+
+	/*
+	 *  Helper method to count the characters of an integer as text, including any minus sign.
+	 */
+	private static int digits(int i) {
+
+		long v = i;
+		int count = 1;
+		if (v < 0) {
+			count++;
+			v = -v;
+		}
+		while (v >= 10) {
+			v = v / 10;
+			count++;
+		}
+
+		return count;
+	}
+
+}
@@ -3,15 +3,22 @@
  */
 
 import java.util.Scanner;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
+import java.io.FileReader;
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 
 /**
  * Main class of Simple Competitions program.
@@ -20,10 +27,23 @@ import java.util.ArrayList;
  */
 public class SimpleCompetitions implements Serializable {
     
-	private Competition comp;
+	private static final long serialVersionUID = 7844399406579550561L;
+	private static final int JAVA_SERIAL_MAGIC = 0xACED;
+	private static final int FILE_BUFFER_SIZE = 1 << 16;
+	private static final String DEFAULT_JOURNAL = "competitions.journal";
+	private static final String JOURNAL_SUFFIX = ".journal";
+	private static final int JOURNAL_CREATE = 1;
+	private static final int JOURNAL_ENTRIES = 2;
+	private static final int JOURNAL_DRAW = 3;
+	private static final int MAX_REJECTS_SHOWN = 10;
+
+	private ArrayList<Competition> activeComps;
+	private Competition comp; //Active competition chosen for the current option, see selectActiveComp.
 	private boolean testingMode;
-	private DataProvider data;
+	private transient DataProvider data; //Always loaded from the member and bill files, never saved.
 	private ArrayList<Competition> completedComps;
+	private transient JournalFile journal; //Changes since the competitions file was loaded.
+	private transient CompetitionServer server; //HTTP API, once started from the menu.
 	private static Scanner keyboard = new Scanner(System.in);
 	private static String fileName; //= "data.dat";
 	
@@ -48,12 +68,136 @@ public class SimpleCompetitions implements Serializable {
     */
 	public SimpleCompetitions(boolean tmode) {
 		
+		this.activeComps = new ArrayList<Competition>();
 		this.comp = null;
 		this.testingMode = tmode;
 		this.data = null;
 		this.completedComps = new ArrayList<Competition>();
 		
 	}
+	
+	/**
+    * Create a new active competition without user input. Safe to call from any thread.
+    * @param compName Name of the competition, String.
+    * @param lucky Boolean, true for a LuckyNumbers competition, false for RandomPick.
+    * @param inFile Boolean, true to keep the entries in a file rather than in memory.
+    * @return Returns the new Competition object.
+    */
+	public synchronized Competition createCompetition(String compName, boolean lucky, boolean inFile) {
+		
+   		int compId = nextCompetitionId();
+   		EntryStore store = inFile ? newEntriesFile(compId) : null;
+   		
+   		//Create new competition object using override constructors, with the default store unless in a file
+   		Competition c;
+   		if (lucky) {
+   			c = (store == null) ? new LuckyNumbersCompetition(compName, compId, testingMode)
+   					: new LuckyNumbersCompetition(compName, compId, testingMode, store);
+   		} else {
+   			c = (store == null) ? new RandomPickCompetition(compName, compId, testingMode)
+   					: new RandomPickCompetition(compName, compId, testingMode, store);
+   		}
+   		activeComps.add(c);
+		
+   		journalCreate(c);
+   		
+   		return c;
+	}
+	
+	/**
+    * Get an active competition by id. Safe to call from any thread.
+    * @param id Competition id, integer.
+    * @return Returns Competition object, null if no active competition has the id.
+    */
+	public synchronized Competition getActiveCompetition(int id) {
+		
+		for (Competition c : activeComps) {
+			if (c.getId() == id) return c;
+		}
+		return null;
+		
+	}
+	
+	/**
+    * Get every competition, completed competitions first. Safe to call from any thread.
+    * @return Returns new list of the Competition objects.
+    */
+	public synchronized ArrayList<Competition> getCompetitions() {
+		
+		ArrayList<Competition> comps = new ArrayList<Competition>(completedComps);
+		comps.addAll(activeComps);
+		return comps;
+		
+	}
+	
+	/**
+    * Add entries from a bill to an active competition without user input. Safe to call from any thread.
+    * The bill is checked as for a bill entered by hand, and the manual number sets by the competition.
+    * The bill is then claimed, and the entries added and journaled. Bills may be added to the same
+    * competition from several threads at once, and are journaled in the order their ids were reserved.
+    * @param c Competition object to add the entries to.
+    * @param billId Bill id String.
+    * @param manualEntries List of manual number sets, empty for automatic entries only.
+    * @param added List to which copies of the entries added are appended.
+    * @return Returns null if the entries were added, otherwise a String describing the problem.
+    */
+	public String addBillEntries(Competition c, String billId, ArrayList<int[]> manualEntries, ArrayList<Entry> added) {
+		
+		String problem = checkBill(billId, manualEntries.size());
+		if (problem != null) return problem;
+		for (int[] numbers : manualEntries) {
+			problem = c.checkManualNumbers(numbers);
+			if (problem != null) return problem;
+		}
+		
+		//Read the bill before claiming it, as a claimed bill reads as used with no entries
+		Bill b = data.getBill(billId);
+		String memberName = data.getMemberName(b.getMemberId());
+		if (!data.claimBill(billId)) return "This bill has already been used for a competition.";
+		
+		int firstNewEntry = addClaimedBill(c, b, memberName, manualEntries);
+		if (firstNewEntry < 0) return "This competition has already been drawn.";
+		journalAddedEntries(c);
+		
+		for (int i = 0; i < b.getNoEntries(); i++) {
+			added.add(c.getEntryFromID(firstNewEntry + i));
+		}
+		
+		return null;
+		
+	}
+	
+	/**
+    * Draw winners in an active competition, which is then completed. Safe to call from any thread.
+    * @param c Competition object to draw.
+    * @return Returns null if winners were drawn, otherwise a String describing the problem.
+    */
+	public String drawCompetition(Competition c) {
+		
+		synchronized (c) {
+			
+			if (!c.getActive()) return "This competition has already been drawn.";
+			if (!c.hasEntries()) return "The current competition has no entries yet!";
+			
+			//Refuse entries still being added, and journal those already added before the draw
+			c.closeEntries();
+			journalAddedEntries(c);
+			
+			c.drawWinners();
+			journalDraw(c);
+			
+			//Set competition to inactive and move to completed competitions array
+			c.setActive(false);
+			synchronized (this) {
+				activeComps.remove(c);
+				completedComps.add(c);
+			}
+			
+		}
+		
+		return null;
+		
+	}
 
 	//--- NOTE:
 	//--- Javadoc formatting not included for private methods per Week 5 slides ---
@@ -111,6 +255,8 @@ public class SimpleCompetitions implements Serializable {
 	
 	/*
 	 *  Static method loads SimpleCompetitions object from a binary file.
+	 *  Reads the binary snapshot format, or imports a file saved by earlier versions
+	 *  with Java serialization, told apart by the first two bytes.
 	 *  @return SimpleCompetitions object from the file.
 	 */
 	private static SimpleCompetitions loadSCFromFile() {
@@ -119,12 +265,23 @@ public class SimpleCompetitions implements Serializable {
 
 		if(fileObject.exists()) {
 
-			ObjectInputStream inputStream = null;
+			BufferedInputStream inputStream = null;
 
 			try {
 				
-				inputStream = new ObjectInputStream(new FileInputStream(fileName));
-				SimpleCompetitions sc = (SimpleCompetitions) inputStream.readObject();
+				inputStream = new BufferedInputStream(new FileInputStream(fileName), FILE_BUFFER_SIZE);
+				SimpleCompetitions sc;
+				
+				inputStream.mark(2);
+				int magic = (inputStream.read() << 8) | inputStream.read();
+				inputStream.reset();
+				
+				if (magic == JAVA_SERIAL_MAGIC) {
+					sc = (SimpleCompetitions) new ObjectInputStream(inputStream).readObject();
+				} else {
+					sc = readSnapshot(new DataInputStream(inputStream));
+				}
+				
 				inputStream.close();
 				return sc;
 				
@@ -135,6 +292,7 @@ public class SimpleCompetitions implements Serializable {
 				
 			} catch(IOException e) {
 				System.out.println("Could not read from file. Goodbye.");
+				System.out.println(e.getMessage());
 				System.exit(0);
 				
 			} catch(ClassNotFoundException e) {
@@ -161,6 +319,50 @@ public class SimpleCompetitions implements Serializable {
     	
 	}
 	
+	/*
+	 *  Static method to read a SimpleCompetitions object from a binary snapshot.
+	 *  Layout: magic, version, testing mode, completed competitions, then active competitions.
+	 *  Members and bills are not saved; entries refer to them by id.
+	 *  Version 1 files also hold a length prefixed DataProvider after the testing mode,
+	 *  which is skipped. Version 1 and 2 files hold a flag and at most one active competition.
+	 *  @param in Stream to read from.
+	 *  @return SimpleCompetitions object from the snapshot.
+	 *  @throws IOException if the snapshot cannot be read or is not properly formatted.
+	 */
+	private static SimpleCompetitions readSnapshot(DataInputStream in) throws IOException {
+		
+		if (in.readInt() != SnapshotFormat.MAGIC) throw new IOException("Not a competitions file");
+		int version = in.readInt();
+		if (version < 1 || version > SnapshotFormat.VERSION) {
+			throw new IOException("Unsupported competitions file version: " + version);
+		}
+		
+		SimpleCompetitions sc = new SimpleCompetitions(in.readBoolean());
+		
+		if (version == 1) {
+			int dataLength = in.readInt();
+			in.skipNBytes(dataLength);
+		}
+		
+		SnapshotFormat format = new SnapshotFormat();
+		int noCompleted = in.readInt();
+		for (int i = 0; i < noCompleted; i++) {
+			sc.completedComps.add(format.readCompetition(in));
+		}
+		int noActive;
+		if (version < 3) {
+			noActive = in.readBoolean() ? 1 : 0;
+		} else {
+			noActive = in.readInt();
+		}
+		for (int i = 0; i < noActive; i++) {
+			sc.activeComps.add(format.readCompetition(in));
+		}
+		
+		return sc;
+		
+	}
+	
 	/*
 	 *  Logic for user to elect test or normal mode prior to constructing new SimpleCompetitions object.
 	 *  @return boolean, true if in test mode.
@@ -228,19 +430,27 @@ public class SimpleCompetitions implements Serializable {
 			}    		
 		}
 		
+		//Journal is no longer needed once saved to file, or if the user discards the session.
+		boolean dropJournal = !saveToFile;
+		boolean saved = false;
+		String loadedFrom = fileName;
+		
 		if (saveToFile) {
 		
 			//Update SimpleCompetitions to binary data file:
 			System.out.println("File name:");
 			fileName = keyboard.nextLine();
 			
-			ObjectOutputStream outputStream = null;
+			DataOutputStream outputStream = null;
 
 			try {
 				
-				outputStream = new ObjectOutputStream(new FileOutputStream(fileName));
-				outputStream.writeObject(sc);
+				outputStream = new DataOutputStream(
+						new BufferedOutputStream(new FileOutputStream(fileName), FILE_BUFFER_SIZE));
+				sc.writeSnapshot(outputStream);
 				outputStream.close();
+				dropJournal = true;
+				saved = true;
 				System.out.println("Competitions have been saved to file.");
 				
 			} catch (FileNotFoundException e) {
@@ -266,10 +476,54 @@ public class SimpleCompetitions implements Serializable {
 			
 		}
 		
+		boolean replacesLoaded = loadedFrom == null
+				|| new File(loadedFrom).getAbsoluteFile().equals(new File(fileName).getAbsoluteFile());
+		sc.closeEntryStores(saved, replacesLoaded, !saveToFile);
+		
+		try {
+			if (dropJournal) {
+				sc.journal.delete();
+			} else {
+				sc.journal.close();
+			}
+		} catch (IOException e) {
+			System.out.println("Error removing journal file: " + sc.journal.getFileName());
+		}
+		
 		System.out.println("Goodbye!");
 		
 	}
 
+	/*
+	 *  Helper logic to close the entry stores of every competition as the session ends.
+	 *  Entries files created or moved away from in this session are deleted once no
+	 *  competitions file or journal refers to them (see MappedEntryStore.saved).
+	 *  @param saved True if the competitions file was written.
+	 *  @param replacesLoaded True if it was written over the competitions file loaded at start.
+	 *  @param discarded True if the session ends without saving, so its journal is removed too.
+	 */
+	private synchronized void closeEntryStores(boolean saved, boolean replacesLoaded, boolean discarded) {
+		
+		for (Competition c : getCompetitions()) {
+			
+			EntryStore store = c.getEntryStore();
+			try {
+				if (store instanceof MappedEntryStore && saved) {
+					((MappedEntryStore) store).saved(replacesLoaded);
+				}
+				if (store instanceof MappedEntryStore && discarded) {
+					((MappedEntryStore) store).discard();
+				} else {
+					store.close();
+				}
+			} catch (IOException e) {
+				System.out.println("Error closing entries of competition " + c.getId() + ".");
+				System.out.println(e.getMessage());
+			}
+		}
+		
+	}
+
 	/*
 	 *  Main program logic for running SimpleCompetitions object.
 	 */	
@@ -277,6 +531,9 @@ public class SimpleCompetitions implements Serializable {
     	
     	//Call logic for identifying and loading members and bills files to DataProvider object
     	loadMemberBillFiles();
+    	
+    	//Recover any changes journaled but not saved by an earlier session
+    	openJournal();
 
     	//Main in-game loop
     	boolean inGame = true;
@@ -308,6 +565,16 @@ public class SimpleCompetitions implements Serializable {
 					
 				case "5":
 					
+					importEntries();
+					break;
+					
+				case "6":
+					
+					startServer();
+					break;
+					
+				case "7":
+					
 					inGame = false;
 					break;
 				
@@ -317,7 +584,11 @@ public class SimpleCompetitions implements Serializable {
 					break;
 			
 			}
-    	}    	
+    	}
+    	
+    	//Stop taking HTTP requests before the competitions are saved
+    	if (server != null) server.stop();
+    	
     }
     
 	/*
@@ -330,9 +601,6 @@ public class SimpleCompetitions implements Serializable {
     	System.out.println("Bill file: ");
     	String bFile = keyboard.nextLine();
     	
-    	//Check if SimpleCompetitions object (with a DataProvider) is already loaded from binary file
-    	if (data!=null) return;  
-    	
     	//Try to open files. Terminate if error
     	try {
     		data = new DataProvider(mFile,bFile);
@@ -350,13 +618,6 @@ public class SimpleCompetitions implements Serializable {
 	 */
 	private void createNewCompetition() {
 		
-		//Check first if there is already an active competition
-		if (activeComp()) {
-			System.out.println("There is an active competition. "
-					+ "SimpleCompetitions does not support concurrent competitions!");
-			return;
-		}
-		
 		//Default competition type is RandomNumbers
 		boolean lucky = false;
 		
@@ -384,17 +645,40 @@ public class SimpleCompetitions implements Serializable {
 			}    		
     	}
     	
+    	//Default entry storage is memory
+    	boolean inFile = false;
+    	
+    	boolean choosingStorage = true;
+    	while(choosingStorage) {
+    		
+    		System.out.println("Keep entries in (M: memory, F: file)?:");
+    		String userInput = keyboard.nextLine().toUpperCase();
+    		
+    		switch (userInput) {
+			
+				case "F":
+					
+					inFile = true;
+					choosingStorage = false;
+					break;
+					
+				case "M":
+					
+					inFile = false;
+					choosingStorage = false;
+					break;
+
+				default:
+					
+					System.out.println("Invalid entry storage! Please choose again.");
+					break;
+			}    		
+    	}
+    	
     	System.out.println("Competition name: ");
    		String compName = keyboard.nextLine();	 
-   		int compId = completedComps.size() + 1;
-		
-   		//Create new competition object using override constructors
-   		if (lucky) {
-   			comp = new LuckyNumbersCompetition(compName, compId, testingMode);
-   		} else {
-   			comp = new RandomPickCompetition(compName, compId, testingMode);
-   		}
-		
+   		comp = createCompetition(compName, lucky, inFile);
+   		
    		System.out.println("A new competition has been created!\n"
    				+ "Competition ID: " + comp.getId()
    				+ ", Competition Name: " + comp.getName()
@@ -403,17 +687,37 @@ public class SimpleCompetitions implements Serializable {
 
 	}
     
+	/*
+	 *  Helper logic to create a file for the entries of a new competition, next to the competitions file.
+	 *  Entries are kept in memory instead if the file cannot be created.
+	 *  @param compId Id of the new competition.
+	 *  @return EntryStore object for the new competition, null if the file could not be created.
+	 */
+	private EntryStore newEntriesFile(int compId) {
+		
+		String directory = (fileName == null) ? null : new File(fileName).getAbsoluteFile().getParent();
+		String entriesFile = MappedEntryStore.newFileName(directory, compId);
+		
+		try {
+			EntryStore store = new MappedEntryStore(entriesFile);
+			System.out.println("Entries will be kept in file: " + entriesFile);
+			return store;
+		} catch (IOException e) {
+			System.out.println("Could not create entries file: " + entriesFile
+					+ ". Entries will be kept in memory.");
+			return null;
+		}
+		
+	}
+	
 	/*
 	 *  Outer loop control logic for adding new entries to the current competition
 	 *  Called from main program loop, option 2
 	 */	
 	private void addNewEntriesOuterLoop() {
 		
-		//Check first if there is an active competition
-		if (!activeComp()) {
-			System.out.println("There is no active competition. Please create one!");
-			return;
-		}		
+		//Check first if there is an active competition, and which one
+		if (!selectActiveComp()) return;		
 		
 		addEntriesLoop: while (true) {
 			
@@ -490,50 +794,281 @@ public class SimpleCompetitions implements Serializable {
 				continue;
 			}
 			
+			//Claim bill, marking it used. Fails if another session used it since the checks above
+			if (!data.claimBill(billId)) {
+				System.out.println("This bill has already been used for a competition. Please try again.");
+				currentBill = null;
+				continue;
+			}
+			
     		checkingBillId = false;	
     		
 		}
     	
-    	//Once checks are complete, add entries to the Competition using the valid bill
-    	//Uses overload 'addEntries' method from Competition object
+    	//Once checks are complete, ask for any manual numbers, then add entries to the Competition
+    	//using the valid bill. Other sessions keep adding entries while the user types.
     	String memberName = data.getMemberName(currentBill.getMemberId());
-    	comp.addEntries(currentBill, memberName, keyboard);
+    	ArrayList<int[]> manualEntries = comp.readManualEntries(currentBill, keyboard);
     	
-    	//Once new entries successfully created, update bill to 'used'
-    	currentBill.setUsed(true);
-    	data.updateBills(currentBill);
+    	//Competition may have been drawn through the HTTP API since it was chosen
+    	int firstNewEntry = addClaimedBill(comp, currentBill, memberName, manualEntries);
+    	if (firstNewEntry < 0) {
+    		System.out.println("This competition has already been drawn.");
+    		return;
+    	}
+    	journalAddedEntries(comp);
+    	
+    	comp.printNewEntries(firstNewEntry, currentBill.getNoEntries());
     	
 	}
 	
 	/*
-	 *  Logic to draw winners in the current competition
-	 *  Called from main program loop, option 3
+	 *  Helper logic to add entries from a bill already claimed, keeping them to be journaled
+	 *  with journalAddedEntries. The bill is released if no entries were added.
+	 *  @param c Competition to add the entries to.
+	 *  @param b Bill object the entries are added from, claimed with claimBill.
+	 *  @param memberName String of member name associated with the Bill.
+	 *  @param manualEntries List of manual number sets, already checked with checkManualNumbers.
+	 *  @return Entry id of the first entry added, -1 if the competition has been drawn.
 	 */
-	private void drawWinners() {
+	private int addClaimedBill(Competition c, Bill b, String memberName, ArrayList<int[]> manualEntries) {
+		
+		int firstNewEntry = -1;
+		try {
+			
+			if (!c.getActive() || c.getIsClosed()) return -1;
+			c.keepAddedBlocks();
+			firstNewEntry = c.addEntries(b, memberName, manualEntries);
+			
+		} catch (IllegalStateException e) {
+			//Closed for the draw after the check above
+			if (!c.getIsClosed()) throw e;
+		} finally {
+			if (firstNewEntry < 0) data.releaseBill(b.getBillId());
+		}
+		
+		return firstNewEntry;
+	}
+	
+	/*
+	 *  Logic to add entries to the current competition in bulk from a file.
+	 *  Called from main program loop, option 5
+	 *  Each line holds a bill id, optionally followed by manual number sets, comma separated,
+	 *  with the 7 numbers of a set separated by whitespace, eg "100005,1 2 3 4 5 6 7".
+	 *  Bills are checked as in addNewEntriesInnerLoop. A rejected line is skipped and counted
+	 *  in the summary. Accepted bills are marked used in memory, and written with the other bill
+	 *  changes when the competitions are saved. The journal is synced once for the whole file.
+	 *  Other sessions may add entries or draw the competition during the import, the bills
+	 *  after a draw are rejected.
+	 */
+	private void importEntries() {
+		
+		//Check first if there is an active competition, and which one
+		if (!selectActiveComp()) return;
+		
+		System.out.println("Entries file: ");
+		String entriesFile = keyboard.nextLine();
+		
+		if (!comp.getActive()) {
+			System.out.println("This competition has already been drawn.");
+			return;
+		}
+		importEntries(entriesFile);
 		
-		//Check if active competition. Must be active comp to draw winners
-		if (!activeComp()) {
-			System.out.println("There is no active competition. Please create one!");
+	}
+	
+	/*
+	 *  Helper logic to add the entries in a file to the chosen competition, see importEntries().
+	 */
+	private void importEntries(String entriesFile) {
+		
+		BufferedReader in = null;
+		try {
+			in = new BufferedReader(new FileReader(entriesFile), FILE_BUFFER_SIZE);
+		} catch (FileNotFoundException e) {
+			System.out.println("Could not open file: " + entriesFile);
 			return;
 		}
 		
-		//Check if active competition has any entries
-		if (comp.hasEntries()) {
+		int lineNo = 0;
+		int accepted = 0;
+		int added = 0;
+		int rejected = 0;
+		LinkedHashMap<String, Integer> rejectCounts = new LinkedHashMap<String, Integer>();
+		ArrayList<String> rejectsShown = new ArrayList<String>();
 		
-			//Call overload methods from active competition to draw and print winners
-			comp.drawWinners();
-			comp.printWinners();
+		try {
 			
-			//Set active competition to inactive and add to completed competitions array
-			comp.setActive(false);
-			completedComps.add(comp);
-			comp = null;
+			String line;
+			while ((line = in.readLine()) != null) {
+				
+				lineNo++;
+				if (line.trim().isEmpty()) continue;
+				
+				String[] fields = line.split(",");
+				ArrayList<int[]> manualEntries = new ArrayList<int[]>();
+				String problem = checkImportLine(fields, manualEntries);
+				
+				//Read the bill before claiming it, as a claimed bill reads as used with no entries
+				Bill b = null;
+				String memberName = null;
+				if (problem == null) {
+					b = data.getBill(fields[0].trim());
+					memberName = data.getMemberName(b.getMemberId());
+					if (!data.claimBill(b.getBillId())) problem = "This bill has already been used for a competition.";
+				}
+				
+				//Add entries from the bill
+				if (problem == null && addClaimedBill(comp, b, memberName, manualEntries) < 0) {
+					problem = "This competition has already been drawn.";
+				}
+				
+				if (problem != null) {
+					rejected++;
+					Integer count = rejectCounts.get(problem);
+					rejectCounts.put(problem, count == null ? 1 : count + 1);
+					if (rejectsShown.size() < MAX_REJECTS_SHOWN) rejectsShown.add("Line " + lineNo + ": " + problem);
+					continue;
+				}
+				
+				added = added + b.getNoEntries();
+				accepted++;
+				
+			}
 			
-		} else {
+		} catch (IOException e) {
+			System.out.println("Error reading file: " + entriesFile + ". Stopped at line " + lineNo + ".");
+		} finally {
+			try {
+				in.close();
+			} catch (IOException e) {
+				System.out.println("Error closing file: " + entriesFile);
+			}
+		}
+		
+		journalAddedEntries(comp);
+		
+		System.out.println("Import complete. Bills accepted: " + accepted
+				+ ", entries added: " + added
+				+ ", lines rejected: " + rejected + ".");
+		for (String problem : rejectCounts.keySet()) {
+			System.out.println("  " + rejectCounts.get(problem) + " x " + problem);
+		}
+		if (rejected > rejectsShown.size()) {
+			System.out.println("First " + rejectsShown.size() + " rejected lines:");
+		}
+		for (String reject : rejectsShown) {
+			System.out.println("  " + reject);
+		}
+		
+	}
+	
+	/*
+	 *  Helper logic to check one line of an entries file, with the same checks as entering a bill by hand.
+	 *  Parsed manual number sets are added to the given list.
+	 *  @return null if the line is valid, otherwise a String describing the problem.
+	 */
+	private String checkImportLine(String[] fields, ArrayList<int[]> manualEntries) {
+		
+		//A line of only commas splits into no fields
+		if (fields.length == 0) return "Invalid bill id! It must be a 6-digit number.";
+		
+		String billId = fields[0].trim();
+		String problem = checkBill(billId, fields.length - 1);
+		if (problem != null) return problem;
+		
+		for (int i = 1; i < fields.length; i++) {
 			
-			System.out.println("The current competition has no entries yet!");
+			String[] numberStrings = fields[i].trim().split("\\s+");
+			int[] numbers = new int[numberStrings.length];
+			try {
+				for (int j = 0; j < numberStrings.length; j++) {
+					numbers[j] = Integer.parseInt(numberStrings[j]);
+				}
+			} catch (NumberFormatException e) {
+				return "Numbers are expected.";
+			}
 			
+			problem = comp.checkManualNumbers(numbers);
+			if (problem != null) return problem;
+			manualEntries.add(numbers);
+		}
+		
+		return null;
+		
+	}
+	
+	/*
+	 *  Logic to start the HTTP API, so tills can add entries and draw winners while the menu runs.
+	 *  Called from main program loop, option 6
+	 */
+	private void startServer() {
+		
+		if (server != null) {
+			System.out.println("The HTTP API is already running on port " + server.getPort() + ".");
+			return;
+		}
+		
+		System.out.println("HTTP port: ");
+		String userInput = keyboard.nextLine().trim();
+		int port;
+		try {
+			port = Integer.parseInt(userInput);
+		} catch (NumberFormatException e) {
+			System.out.println("A number is expected. Please try again.");
+			return;
+		}
+		
+		try {
+			server = new CompetitionServer(this, port);
+			server.start();
+			System.out.println("HTTP API started: http://localhost:" + server.getPort() + CompetitionServer.PATH);
+		} catch (IOException e) {
+			System.out.println("Could not start HTTP API on port " + port + ".");
+			System.out.println(e.getMessage());
+			server = null;
+		}
+		
+	}
+	
+	/*
+	 *  Helper logic to check a bill can be used for entries, with the same checks as entering a bill by hand.
+	 *  @param billId Bill id String.
+	 *  @param noManualEntries Number of manual number sets given with the bill.
+	 *  @return null if the bill can be used, otherwise a String describing the problem.
+	 */
+	private String checkBill(String billId, int noManualEntries) {
+		
+		if (!Bill.isValidFormat(billId)) return "Invalid bill id! It must be a 6-digit number.";
+		if (!data.billExists(billId)) return "This bill does not exist.";
+		
+		Bill b = data.getBill(billId);
+		if (!b.hasMemberId()) return "This bill has no member id.";
+		if (b.getUsed()) return "This bill has already been used for a competition.";
+		if (b.notEnoughFunds()) return "This bill has insufficient funds.";
+		if (noManualEntries > b.getNoEntries()) return "More manual entries than the bill is eligible for.";
+		
+		return null;
+		
+	}
+	
+	/*
+	 *  Logic to draw winners in the current competition
+	 *  Called from main program loop, option 3
+	 */
+	private void drawWinners() {
+		
+		//Check if active competition, and which one. Must be active comp to draw winners
+		if (!selectActiveComp()) return;
+		
+		//Draw winners if the competition has any entries, then print them
+		String problem = drawCompetition(comp);
+		if (problem == null) {
+			comp.printWinners();
+		} else {
+			System.out.println(problem);
 		}
+		comp = null;
 
 	}
 	
@@ -541,19 +1076,18 @@ public class SimpleCompetitions implements Serializable {
 	 *  Logic for printing summary report of all competitions within SimpleCompetitions object
 	 *  Called from main program loop, option 4
 	 */
-	private void printSummaryReport() {
+	private synchronized void printSummaryReport() {
 		
 		//Check if any competitions to print
-		if (completedComps.size() == 0 && !activeComp()) {
+		if (completedComps.size() == 0 && activeComps.isEmpty()) {
 			System.out.println("No competition has been created yet!");
 			return;
 		}
 		
 		//Print summary report in specified format
-		//Draw info from both active competition object and completed competitions from completedComps array 
+		//Draw info from both active competitions and completed competitions arrays
 		int noCompleted = completedComps.size();
-		int noActive = 0;
-		if (activeComp()) noActive = 1;
+		int noActive = activeComps.size();
 		
 		System.out.println("----SUMMARY REPORT----");
 		System.out.println("+Number of completed competitions: " + noCompleted);
@@ -564,9 +1098,241 @@ public class SimpleCompetitions implements Serializable {
 			c.printCompetitionSummary();
 		}
 		
-		if(activeComp()) {
+		for (Competition c:activeComps) {
 			System.out.println();
-			comp.printCompetitionSummary();
+			c.printCompetitionSummary();
+		}
+		
+	}
+	
+	/*
+	 *  Logic for opening the journal of changes made since the competitions file was loaded.
+	 *  The journal sits next to the competitions file, or uses a default name for a new session.
+	 *  Any records left by a session that ended without saving are replayed first.
+	 */
+	private void openJournal() {
+		
+		String journalName = (fileName == null) ? DEFAULT_JOURNAL : fileName + JOURNAL_SUFFIX;
+		journal = new JournalFile(journalName);
+		
+		try {
+			int replayed = replayJournal();
+			if (replayed > 0) {
+				System.out.println("Recovered " + replayed + " unsaved changes from " + journalName + ".");
+			}
+		} catch (IOException e) {
+			System.out.println("Error reading journal file: " + journalName
+					+ ". Unsaved changes could not be recovered.");
+			System.out.println(e.getMessage());
+		}
+		
+	}
+	
+	/*
+	 *  Helper logic to replay journal records on top of the loaded competitions.
+	 *  Records already held by the competitions file (if it was saved but the journal
+	 *  was not removed) are skipped, entries by their entry id, so replaying twice is harmless.
+	 *  @return number of records replayed.
+	 *  @throws IOException if the journal cannot be read or is not properly formatted.
+	 */
+	private int replayJournal() throws IOException {
+		
+		ArrayList<DataInputStream> records = journal.readRecords();
+		
+		for (DataInputStream in : records) {
+			
+			SnapshotFormat format = new SnapshotFormat();
+			int type = in.readUnsignedByte();
+			
+			switch (type) {
+			
+				case JOURNAL_CREATE:
+					
+					Competition c = format.readCompetition(in);
+					if (c.getId() == nextCompetitionId()) {
+						activeComps.add(c);
+					} else {
+						c.getEntryStore().close(); //Already held by the competitions file
+					}
+					break;
+					
+				case JOURNAL_ENTRIES:
+					
+					Competition target = getActiveCompetition(SnapshotFormat.readVarInt(in));
+					String billId = in.readUTF();
+					int count = SnapshotFormat.readVarInt(in);
+					for (int i = 0; i < count; i++) {
+						Entry e = format.readEntry(in);
+						if (target != null && !target.hasEntryId(e.getEntryId())) target.addEntry(e);
+					}
+					if (target != null) data.claimBill(billId);
+					break;
+					
+				case JOURNAL_DRAW:
+					
+					Competition drawn = getActiveCompetition(SnapshotFormat.readVarInt(in));
+					if (drawn == null) break;
+					drawn.readDetails(in, format);
+					int winners = SnapshotFormat.readVarInt(in);
+					for (int i = 0; i < winners; i++) {
+						Entry e = drawn.getEntryFromID(SnapshotFormat.readVarInt(in));
+						e.setPrize(SnapshotFormat.readVarInt(in));
+						drawn.updateEntries(e);
+					}
+					drawn.setActive(false);
+					activeComps.remove(drawn);
+					completedComps.add(drawn);
+					break;
+					
+				default:
+					
+					throw new IOException("Unknown journal record type: " + type);
+			}
+		}
+		
+		return records.size();
+		
+	}
+	
+	/*
+	 *  Helper logic to journal a newly created competition.
+	 */
+	private void journalCreate(Competition c) {
+		
+		ByteArrayOutputStream record = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(record);
+		
+		try {
+			out.writeByte(JOURNAL_CREATE);
+			new SnapshotFormat().writeCompetition(out, c);
+		} catch (IOException e) {
+			//Writes to memory only.
+		}
+		
+		writeJournal(record);
+		
+	}
+	
+	/*
+	 *  Helper logic to journal the entries added to a competition and not yet journaled, one record
+	 *  per bill, in the order their ids were reserved (see Competition.keepAddedBlocks).
+	 *  Returns once the entries are journaled, whichever thread writes them, as the records
+	 *  waiting are written and synced together while holding the journal.
+	 *  @param c Competition the entries were added to.
+	 */
+	private void journalAddedEntries(Competition c) {
+		
+		synchronized (journal) {
+			
+			ArrayList<ByteArrayOutputStream> records = new ArrayList<ByteArrayOutputStream>();
+			EntryBlock block;
+			while ((block = c.takeAddedBlock()) != null) {
+				records.add(entriesRecord(c, block));
+			}
+			if (records.isEmpty()) return;
+			
+			try {
+				journal.append(records);
+			} catch (IOException e) {
+				System.out.println("Error writing journal file: " + journal.getFileName());
+				System.out.println(e.getMessage());
+			}
+			
+		}
+		
+	}
+	
+	/*
+	 *  Helper logic to build the journal record of the entries added from a bill, and the bill being used.
+	 *  @param c Competition the entries were added to.
+	 *  @param block Block of entries added from the bill.
+	 *  @return Bytes of the record.
+	 */
+	private ByteArrayOutputStream entriesRecord(Competition c, EntryBlock block) {
+		
+		ByteArrayOutputStream record = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(record);
+		SnapshotFormat format = new SnapshotFormat();
+		
+		try {
+			out.writeByte(JOURNAL_ENTRIES);
+			SnapshotFormat.writeVarInt(out, c.getId());
+			out.writeUTF(block.getBillId());
+			SnapshotFormat.writeVarInt(out, block.getCount());
+			for (int i = 0; i < block.getCount(); i++) {
+				format.writeEntry(out, block.getEntry(i));
+			}
+		} catch (IOException e) {
+			//Writes to memory only.
+		}
+		
+		return record;
+		
+	}
+	
+	/*
+	 *  Helper logic to journal the result of drawing winners in an active competition.
+	 *  The result is journaled rather than the draw, as draws outside testing mode are random.
+	 */
+	private void journalDraw(Competition c) {
+		
+		ByteArrayOutputStream record = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(record);
+		
+		try {
+			out.writeByte(JOURNAL_DRAW);
+			SnapshotFormat.writeVarInt(out, c.getId());
+			c.writeDetails(out, new SnapshotFormat());
+			SnapshotFormat.writeVarInt(out, c.getNoWinningEntries());
+			for (int i = 0; i < c.getNoEntries(); i++) {
+				if (c.getEntryPrize(i) != 0) {
+					Entry e = c.getEntryFromIndex(i);
+					SnapshotFormat.writeVarInt(out, e.getEntryId());
+					SnapshotFormat.writeVarInt(out, e.getPrize());
+				}
+			}
+		} catch (IOException e) {
+			//Writes to memory only.
+		}
+		
+		writeJournal(record);
+		
+	}
+	
+	/*
+	 *  Helper logic to append a record to the journal, reporting but not stopping on errors.
+	 */
+	private void writeJournal(ByteArrayOutputStream record) {
+		
+		try {
+			journal.append(record);
+		} catch (IOException e) {
+			System.out.println("Error writing journal file: " + journal.getFileName());
+			System.out.println(e.getMessage());
+		}
+		
+	}
+	
+	/*
+	 *  Helper logic for exit options.
+	 *  Writes this object as a binary snapshot, see readSnapshot for the layout.
+	 *  @param out Stream to write to.
+	 *  @throws IOException if the snapshot cannot be written.
+	 */
+	private synchronized void writeSnapshot(DataOutputStream out) throws IOException {
+		
+		out.writeInt(SnapshotFormat.MAGIC);
+		out.writeInt(SnapshotFormat.VERSION);
+		out.writeBoolean(testingMode);
+		
+		SnapshotFormat format = new SnapshotFormat();
+		out.writeInt(completedComps.size());
+		for (Competition c : completedComps) {
+			format.writeCompetition(out, c);
+		}
+		out.writeInt(activeComps.size());
+		for (Competition c : activeComps) {
+			format.writeCompetition(out, c);
 		}
 		
 	}
@@ -603,27 +1369,87 @@ public class SimpleCompetitions implements Serializable {
 	}
 	
 	/*
-	 *  Helper logic to check if there is an active competition in the SimpleCompetitions object
-	 *  @return boolean, true if there is an active competition.
+	 *  Helper logic to choose the active competition for the current option.
+	 *  With more than one active competition, the user is asked for its id.
+	 *  @return boolean, true if an active competition was chosen, false if there is none.
 	 */
-	private boolean activeComp() {
+	private boolean selectActiveComp() {
+		
+		comp = null;
+		StringBuilder ids = new StringBuilder();
+		synchronized (this) {
+			
+			if (activeComps.isEmpty()) {
+				System.out.println("There is no active competition. Please create one!");
+				return false;
+			}
+			if (activeComps.size() == 1) {
+				comp = activeComps.get(0);
+				return true;
+			}
 			
-		if(comp == null) return false;
+			for (Competition c : activeComps) {
+				if (ids.length() > 0) ids.append(", ");
+				ids.append(c.getId());
+			}
+			
+		}
+		
+		while (comp == null) {
+			
+			System.out.println("Competition ID (active: " + ids + "): ");
+			String userInput = keyboard.nextLine().trim();
+			
+			try {
+				comp = getActiveCompetition(Integer.parseInt(userInput));
+			} catch (NumberFormatException e) {
+				System.out.println("A number is expected. Please try again.");
+				continue;
+			}
+			if (comp == null) System.out.println("There is no active competition with this id. Please try again.");
+			
+		}
+		
 		return true;
 		
 	}
+	
+	/*
+	 *  Helper logic to get the id for a new competition. Ids count every competition created.
+	 *  @return next competition id integer.
+	 */
+	private int nextCompetitionId() {
+		return completedComps.size() + activeComps.size() + 1;
+	}
+	
+	/*
+	 *  Helper logic for loading files saved with Java serialization, which held
+	 *  at most one active competition in comp.
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		
+		in.defaultReadObject();
+		if (activeComps == null) {
+			activeComps = new ArrayList<Competition>();
+			if (comp != null) activeComps.add(comp);
+		}
+		comp = null;
+		
+	}
 
 	/*
 	 *  Helper logic to display main menu options
 	 */
 	private void displayMenuOptions() {
 		
-		String menuOptions = "Please select an option. Type 5 to exit.\n"
+		String menuOptions = "Please select an option. Type 7 to exit.\n"
 			+ "1. Create a new competition\n"
 			+ "2. Add new entries\n"
 			+ "3. Draw winners\n"
 			+ "4. Get a summary report\n"
-			+ "5. Exit";
+			+ "5. Import entries from a file\n"
+			+ "6. Start HTTP API\n"
+			+ "7. Exit";
 		
 		System.out.println(menuOptions);
 	
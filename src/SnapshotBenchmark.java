@@ -0,0 +1,348 @@
+/*
+ * Author: Damian Curran
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.PrintWriter;
+
+/**
+ * Runnable benchmark of saving and loading a large competition.
+ * Builds a drawn Lucky Numbers competition with automatic entries from many members, then
+ * saves it to a temporary file and loads it again, in the binary snapshot format
+ * (see SnapshotFormat) and with Java serialization, as competitions were saved before.
+ * Both must load the same entries. The fastest of several rounds is reported, with the file sizes.
+ * Runs once with the entries held as Entry objects (EntryStore), as they were when competitions
+ * were saved with Java serialization, and once in the default ColumnarEntryStore.
+ * Also times the DataProvider section that version 1 snapshots held, a DataProvider loaded from
+ * member and bill files and written with Java serialization, which snapshots now leave out.
+ * Then measures the heap a loaded competition keeps after garbage collection, once loaded as
+ * Entry objects with Java serialization and once loaded from the snapshot into the default store.
+ * Files are removed afterwards.
+ * Usage: java SnapshotBenchmark [entries] [members] [bills], eg 1000000 100000 1000000
+ * Prints one line per case, and exits with status 1 if any case fails.
+ * @author Name: Damian Curran
+ */
+public class SnapshotBenchmark {
+
+	private final static int ROUNDS = 3;
+	private final static int ENTRIES_PER_BILL = 20;
+	private final static int PRIZE_EVERY = 97; //One entry in 97 has a prize.
+	private final static int BUFFER_SIZE = 1 << 16;
+
+	private int failures = 0;
+
+	/**
+    * Main program, runs every case.
+    * @param args Number of entries, number of members, and number of bills (0 to skip the DataProvider).
+    */
+	public static void main(String[] args) {
+
+		int entries = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		int members = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+		int bills = args.length > 2 ? Integer.parseInt(args[2]) : 1000000;
+
+		SnapshotBenchmark check = new SnapshotBenchmark();
+		File dir = null;
+		try {
+			dir = File.createTempFile("snapbench", "");
+			dir.delete();
+			dir.mkdir();
+			check.checkSaveLoad(dir, competition(entries, members, new EntryStore()));
+			check.checkSaveLoad(dir, competition(entries, members, new ColumnarEntryStore()));
+			check.checkRetainedHeap(dir, entries, members);
+			if (bills > 0) check.checkDataProvider(dir, bills, Math.min(members, bills));
+		} catch (Exception e) {
+			System.out.println("FAIL could not run: " + e);
+			check.failures++;
+		} finally {
+			deleteAll(dir);
+		}
+
+		if (check.failures > 0) {
+			System.out.println(check.failures + " case(s) failed.");
+			System.exit(1);
+		}
+		System.out.println("All cases passed.");
+
+	}
+
+	/*
+	 *  Helper logic to time saving and loading a competition in the binary snapshot format
+	 *  and with Java serialization, and check both load the same entries.
+	 */
+	private void checkSaveLoad(File dir, Competition c) throws Exception {
+
+		File snapshot = new File(dir, "competitions.dat");
+		File serialized = new File(dir, "competitions.ser");
+		long[] best = {Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE};
+		Competition fromSnapshot = null;
+		Competition fromSerialized = null;
+
+		for (int round = 0; round < ROUNDS; round ++) {
+
+			long start = System.nanoTime();
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(snapshot), BUFFER_SIZE));
+			new SnapshotFormat().writeCompetition(out, c);
+			out.close();
+			best[0] = Math.min(best[0], System.nanoTime() - start);
+
+			fromSnapshot = null;
+			start = System.nanoTime();
+			DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshot), BUFFER_SIZE));
+			fromSnapshot = new SnapshotFormat().readCompetition(in);
+			in.close();
+			best[1] = Math.min(best[1], System.nanoTime() - start);
+
+			start = System.nanoTime();
+			ObjectOutputStream objectOut = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(serialized), BUFFER_SIZE));
+			objectOut.writeObject(c);
+			objectOut.close();
+			best[2] = Math.min(best[2], System.nanoTime() - start);
+
+			fromSerialized = null;
+			start = System.nanoTime();
+			ObjectInputStream objectIn = new ObjectInputStream(new BufferedInputStream(new FileInputStream(serialized), BUFFER_SIZE));
+			fromSerialized = (Competition) objectIn.readObject();
+			objectIn.close();
+			best[3] = Math.min(best[3], System.nanoTime() - start);
+
+		}
+
+		String problem = compare(c, fromSnapshot, "the snapshot");
+		if (problem == null) problem = compare(c, fromSerialized, "Java serialization");
+
+		String name = "save and load, " + c.getNoEntries() + " entries in " + c.getEntryStore().getClass().getName();
+		String result = String.format("snapshot %.1f MB save %d ms load %d ms, Java serialization %.1f MB save %d ms load %d ms",
+				snapshot.length() / 1048576.0, best[0] / 1000000, best[1] / 1000000,
+				serialized.length() / 1048576.0, best[2] / 1000000, best[3] / 1000000);
+		report(name + " (" + result + ")", problem);
+
+	}
+
+	/*
+	 *  Helper logic to measure the heap kept by a competition loaded as Entry objects with
+	 *  Java serialization, and by one loaded from the snapshot, after garbage collection.
+	 */
+	private void checkRetainedHeap(File dir, int entries, int members) throws Exception {
+
+		File snapshot = new File(dir, "competitions.dat");
+		File serialized = new File(dir, "competitions.ser");
+		Competition c = competition(entries, members, new EntryStore());
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(snapshot), BUFFER_SIZE));
+		new SnapshotFormat().writeCompetition(out, c);
+		out.close();
+		ObjectOutputStream objectOut = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(serialized), BUFFER_SIZE));
+		objectOut.writeObject(c);
+		objectOut.close();
+		c = null;
+
+		long before = usedHeap();
+		long start = System.nanoTime();
+		ObjectInputStream objectIn = new ObjectInputStream(new BufferedInputStream(new FileInputStream(serialized), BUFFER_SIZE));
+		Competition fromSerialized = (Competition) objectIn.readObject();
+		objectIn.close();
+		objectIn = null; //Its table of objects read keeps its full size after close.
+		long serializedNanos = System.nanoTime() - start;
+		long serializedHeap = usedHeap() - before;
+		String problem = null;
+		if (!(fromSerialized.getEntryStore() instanceof EntryStore) || fromSerialized.getNoEntries() != entries) {
+			problem = "Java serialization did not load " + entries + " entries";
+		}
+		fromSerialized = null;
+
+		before = usedHeap();
+		start = System.nanoTime();
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshot), BUFFER_SIZE));
+		Competition fromSnapshot = new SnapshotFormat().readCompetition(in);
+		in.close();
+		in = null;
+		long snapshotNanos = System.nanoTime() - start;
+		long snapshotHeap = usedHeap() - before;
+		if (problem == null && fromSnapshot.getNoEntries() != entries) problem = "the snapshot did not load " + entries + " entries";
+
+		String name = "retained heap, " + entries + " entries";
+		String result = String.format("Entry objects from Java serialization %.0f MB loaded in %d ms, %s from the snapshot %.0f MB loaded in %d ms",
+				serializedHeap / 1048576.0, serializedNanos / 1000000, fromSnapshot.getEntryStore().getClass().getName(),
+				snapshotHeap / 1048576.0, snapshotNanos / 1000000);
+		report(name + " (" + result + ")", problem);
+
+	}
+
+	/*
+	 *  Helper method to get the heap in use after garbage collection, in bytes.
+	 */
+	private static long usedHeap() {
+
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i ++) {
+			System.gc();
+		}
+
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	/*
+	 *  Helper logic to time writing and reading a DataProvider with Java serialization, as
+	 *  the length prefixed DataProvider section of a version 1 snapshot was.
+	 */
+	private void checkDataProvider(File dir, int bills, int members) throws Exception {
+
+		File memberFile = new File(dir, "members.csv");
+		File billFile = new File(dir, "bills.csv");
+		PrintWriter out = new PrintWriter(new FileWriter(memberFile));
+		for (int m = 0; m < members; m ++) {
+			out.println((100000 + m) + ",Name" + m + ",m" + m + "@abc.com");
+		}
+		out.close();
+		if (out.checkError()) throw new IOException("Could not write " + memberFile);
+		out = new PrintWriter(new FileWriter(billFile));
+		for (int i = 0; i < bills; i ++) {
+			out.println((100000 + i) + "," + (100000 + i % members) + "," + (i % 2000) + ".5," + (i % 10 == 0));
+		}
+		out.close();
+		if (out.checkError()) throw new IOException("Could not write " + billFile);
+
+		DataProvider data = new DataProvider(memberFile.getPath(), billFile.getPath(), false);
+		long bestSave = Long.MAX_VALUE;
+		long bestLoad = Long.MAX_VALUE;
+		int length = 0;
+		DataProvider loaded = null;
+
+		for (int round = 0; round < ROUNDS; round ++) {
+
+			long start = System.nanoTime();
+			ByteArrayOutputStream section = new ByteArrayOutputStream(BUFFER_SIZE);
+			ObjectOutputStream objectOut = new ObjectOutputStream(section);
+			objectOut.writeObject(data);
+			objectOut.close();
+			byte[] bytes = section.toByteArray();
+			bestSave = Math.min(bestSave, System.nanoTime() - start);
+			length = bytes.length;
+
+			loaded = null;
+			start = System.nanoTime();
+			ObjectInputStream objectIn = new ObjectInputStream(new ByteArrayInputStream(bytes));
+			loaded = (DataProvider) objectIn.readObject();
+			objectIn.close();
+			bestLoad = Math.min(bestLoad, System.nanoTime() - start);
+
+		}
+
+		String problem = null;
+		if (loaded.getBillSize() != bills) problem = "read " + loaded.getBillSize() + " bills of " + bills;
+		for (int i = 0; i < bills && problem == null; i += 997) {
+			String billId = String.valueOf(100000 + i);
+			Bill b = loaded.getBill(billId);
+			if (!b.getAmountString().equals(data.getBill(billId).getAmountString())
+					|| !loaded.getMemberName(b.getMemberId()).equals("Name" + (i % members))) {
+				problem = "bill " + billId + " read differently";
+			}
+		}
+
+		String name = "DataProvider section of a version 1 snapshot, " + bills + " bills and " + members + " members";
+		String result = String.format("%.1f MB save %d ms load %d ms",
+				length / 1048576.0, bestSave / 1000000, bestLoad / 1000000);
+		report(name + " (" + result + ")", problem);
+
+	}
+
+	/*
+	 *  Helper method to build a drawn Lucky Numbers competition in testing mode, in the given store.
+	 *  Bills of ENTRIES_PER_BILL entries go to the members in turn, and entries built from
+	 *  one bill share its Strings, as entries added from a till do.
+	 */
+	private static Competition competition(int entries, int members, EntryStore store) {
+
+		String[] memberIds = new String[members];
+		String[] names = new String[members];
+		for (int m = 0; m < members; m ++) {
+			memberIds[m] = String.valueOf(100000 + m);
+			names[m] = "Name" + m;
+		}
+
+		LuckyNumbersCompetition c = new LuckyNumbersCompetition("Benchmark", 1, true, store);
+		AutoNumbersEntry generator = new AutoNumbersEntry();
+		String billId = null;
+		int member = 0;
+		for (int i = 0; i < entries; i ++) {
+			if (i % ENTRIES_PER_BILL == 0) {
+				billId = String.valueOf(100000 + i / ENTRIES_PER_BILL);
+				member = (i / ENTRIES_PER_BILL) % members;
+			}
+			AutoNumbersEntry e = new AutoNumbersEntry(i + 1, memberIds[member], billId, names[member]);
+			e.setNumbers(generator.createNumbers(i));
+			c.addEntry(e);
+		}
+		for (int i = 0; i < entries; i += PRIZE_EVERY) {
+			c.setEntryPrize(i, 50);
+		}
+		c.setActive(false);
+
+		return c;
+	}
+
+	/*
+	 *  Helper method to compare every entry of a loaded competition with the one saved.
+	 *  @return Returns null if they match, otherwise a String describing the first difference.
+	 */
+	private static String compare(Competition saved, Competition loaded, String how) {
+
+		if (loaded.getNoEntries() != saved.getNoEntries()) {
+			return how + " loaded " + loaded.getNoEntries() + " entries of " + saved.getNoEntries();
+		}
+		for (int i = 0; i < saved.getNoEntries(); i ++) {
+			Entry a = saved.getEntryFromIndex(i);
+			Entry b = loaded.getEntryFromIndex(i);
+			if (a.getEntryId() != b.getEntryId() || !a.getMemberId().equals(b.getMemberId())
+					|| !a.getBillId().equals(b.getBillId()) || !a.getMemberName().equals(b.getMemberName())
+					|| a.getPrize() != b.getPrize() || a.getNumberMask() != b.getNumberMask()) {
+				return how + " loaded entry " + a.getEntryId() + " differently";
+			}
+		}
+
+		return null;
+	}
+
+	/*
+	 *  Helper method to print the result of a case.
+	 */
+	private void report(String name, String problem) {
+
+		if (problem == null) {
+			System.out.println("PASS " + name);
+		} else {
+			System.out.println("FAIL " + name + ": " + problem);
+			failures++;
+		}
+
+	}
+
+	/*
+	 *  Helper method to remove the temporary directory and the files in it.
+	 */
+	private static void deleteAll(File dir) {
+
+		if (dir == null) return;
+		File[] files = dir.listFiles();
+		if (files != null) {
+			for (File f : files) {
+				f.delete();
+			}
+		}
+		dir.delete();
+
+	}
+
+}
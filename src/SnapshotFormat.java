@@ -0,0 +1,306 @@
+/*
+ * Author: Damian Curran
+ */
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Binary snapshot format for competitions and their entries.
+ * Replaces Java serialization of the whole SimpleCompetitions object.
+ * Repeated Strings (member ids, bill ids, member names) are written once per snapshot
+ * and referred to by index after that. Counts, ids and prizes are written as varints.
+ * Entries kept in a MappedEntryStore are not written, only the name of their file,
+ * their count and the bills and members they belong to.
+ * Layout of the file as a whole is owned by SimpleCompetitions.
+ * @author Name: Damian Curran
+ */
+public class SnapshotFormat {
+
+	/**
+    * First int of every binary snapshot file, "SCMP".
+    * Java serialized files start with 0xACED instead, which is how old files are told apart.
+    */
+	public static final int MAGIC = 0x53434D50;
+
+	/**
+    * Current version of the snapshot format.
+    * Version 1 also held the DataProvider, and versions 1 and 2 held at most one active
+    * competition, see SimpleCompetitions.readSnapshot.
+    */
+	public static final int VERSION = 3;
+
+	private static final int COMPETITION_RANDOM_PICK = 1;
+	private static final int COMPETITION_LUCKY_NUMBERS = 2;
+	private static final int ENTRIES_IN_FILE = 0x80; //Flag on the competition type.
+	private static final int ENTRY_PLAIN = 0;
+	private static final int ENTRY_NUMBERS = 1;
+	private static final int ENTRY_AUTO_NUMBERS = 2;
+	private static final int NUMBER_COUNT = 7;
+
+	private final HashMap<String, Integer> stringIds;
+	private final ArrayList<String> strings;
+
+	/**
+    * Constructor of the SnapshotFormat class.
+    * One object is used for reading or writing one whole snapshot, as it holds the String table.
+    */
+	public SnapshotFormat() {
+		this.stringIds = new HashMap<String, Integer>();
+		this.strings = new ArrayList<String>();
+	}
+
+	/**
+    * Write a competition and all its entries.
+    * @param out Stream to write to.
+    * @param c Competition to write.
+    * @throws IOException if the stream cannot be written.
+    */
+	public void writeCompetition(DataOutputStream out, Competition c) throws IOException {
+
+		int type;
+		if (c instanceof LuckyNumbersCompetition) {
+			type = COMPETITION_LUCKY_NUMBERS;
+		} else if (c instanceof RandomPickCompetition) {
+			type = COMPETITION_RANDOM_PICK;
+		} else {
+			throw new IOException("Unsupported competition type: " + c.getType());
+		}
+
+		MappedEntryStore mapped = null;
+		if (c.getEntryStore() instanceof MappedEntryStore) mapped = (MappedEntryStore) c.getEntryStore();
+		out.writeByte(mapped == null ? type : type | ENTRIES_IN_FILE);
+
+		writeVarInt(out, c.getId());
+		writeString(out, c.getName());
+		out.writeBoolean(c.getIsTestingMode());
+		out.writeBoolean(c.getActive());
+
+		//Entries in a file are written there already, so the file only needs to be up to date.
+		if (mapped != null) {
+			mapped.force();
+			writeString(out, mapped.getFileName());
+			writeVarInt(out, mapped.size());
+			mapped.getNames().write(out, this);
+			c.writeDetails(out, this);
+			return;
+		}
+
+		c.writeDetails(out, this);
+
+		int noEntries = c.getNoEntries();
+		writeVarInt(out, noEntries);
+		for (int i = 0; i < noEntries; i ++) {
+			writeEntry(out, c.getEntryFromIndex(i));
+		}
+
+	}
+
+	/**
+    * Read a competition and all its entries.
+    * @param in Stream to read from.
+    * @return Returns Competition object of the derived type that was written.
+    * @throws IOException if the stream cannot be read or is not properly formatted.
+    */
+	public Competition readCompetition(DataInputStream in) throws IOException {
+
+		int type = in.readUnsignedByte();
+		int id = readVarInt(in);
+		String name = readString(in);
+		boolean tmode = in.readBoolean();
+		boolean active = in.readBoolean();
+
+		EntryStore store = null;
+		if ((type & ENTRIES_IN_FILE) != 0) {
+			String entriesFile = readString(in);
+			int size = readVarInt(in);
+			store = MappedEntryStore.open(entriesFile, size, EntryNameTable.read(in, this), active);
+			type = type & ~ENTRIES_IN_FILE;
+		}
+
+		//Competitions without entries in a file keep the default store of their type.
+		Competition c;
+		if (type == COMPETITION_LUCKY_NUMBERS) {
+			c = (store == null) ? new LuckyNumbersCompetition(name, id, tmode) : new LuckyNumbersCompetition(name, id, tmode, store);
+		} else if (type == COMPETITION_RANDOM_PICK) {
+			c = (store == null) ? new RandomPickCompetition(name, id, tmode) : new RandomPickCompetition(name, id, tmode, store);
+		} else {
+			throw new IOException("Unknown competition type in snapshot: " + type);
+		}
+		c.setActive(active);
+		c.readDetails(in, this);
+		if (store != null) return c;
+
+		int noEntries = readVarInt(in);
+		for (int i = 0; i < noEntries; i ++) {
+			c.addEntry(readEntry(in));
+		}
+
+		return c;
+	}
+
+	/**
+    * Write the numbers of a numbers entry, as one byte each.
+    * @param out Stream to write to.
+    * @param e Entry holding the numbers.
+    * @throws IOException if the stream cannot be written.
+    */
+	public void writeNumbers(DataOutputStream out, Entry e) throws IOException {
+		for (int i = 0; i < NUMBER_COUNT; i ++) {
+			out.writeByte(e.getNumber(i));
+		}
+	}
+
+	/**
+    * Read the numbers of a numbers entry.
+    * @param in Stream to read from.
+    * @return Returns integer array of the numbers.
+    * @throws IOException if the stream cannot be read.
+    */
+	public int[] readNumbers(DataInputStream in) throws IOException {
+
+		int[] numbers = new int[NUMBER_COUNT];
+		for (int i = 0; i < NUMBER_COUNT; i ++) {
+			numbers[i] = in.readUnsignedByte();
+		}
+
+		return numbers;
+	}
+
+	/**
+    * Write one entry, tagged with its derived type.
+    * @param out Stream to write to.
+    * @param e Entry to write.
+    * @throws IOException if the stream cannot be written.
+    */
+	public void writeEntry(DataOutputStream out, Entry e) throws IOException {
+
+		int kind = ENTRY_PLAIN;
+		if (e instanceof AutoNumbersEntry) {
+			kind = ENTRY_AUTO_NUMBERS;
+		} else if (e instanceof NumbersEntry) {
+			kind = ENTRY_NUMBERS;
+		}
+
+		out.writeByte(kind);
+		writeVarInt(out, e.getEntryId());
+		writeString(out, e.getMemberId());
+		writeString(out, e.getBillId());
+		writeString(out, e.getMemberName());
+		writeVarInt(out, e.getPrize());
+		if (kind != ENTRY_PLAIN) writeNumbers(out, e);
+
+	}
+
+	/**
+    * Read one entry, creating the derived type it was written as.
+    * @param in Stream to read from.
+    * @return Returns Entry object.
+    * @throws IOException if the stream cannot be read or is not properly formatted.
+    */
+	public Entry readEntry(DataInputStream in) throws IOException {
+
+		int kind = in.readUnsignedByte();
+		int entryId = readVarInt(in);
+		String memberId = readString(in);
+		String billId = readString(in);
+		String memberName = readString(in);
+		int prize = readVarInt(in);
+
+		Entry e;
+		if (kind == ENTRY_PLAIN) {
+			e = new Entry(entryId, memberId, billId, memberName);
+		} else if (kind == ENTRY_NUMBERS) {
+			e = new NumbersEntry(entryId, memberId, billId, readNumbers(in), memberName);
+		} else if (kind == ENTRY_AUTO_NUMBERS) {
+			AutoNumbersEntry a = new AutoNumbersEntry(entryId, memberId, billId, memberName);
+			a.setNumbers(readNumbers(in));
+			e = a;
+		} else {
+			throw new IOException("Unknown entry type in snapshot: " + kind);
+		}
+		e.setPrize(prize);
+
+		return e;
+	}
+
+	/**
+    * Write a String through the String table.
+    * A String seen before is written as its table index. A new String is written as the
+    * next free index followed by its text, so the reader can build the same table.
+    * @param out Stream to write to.
+    * @param s String to write.
+    * @throws IOException if the stream cannot be written.
+    */
+	public void writeString(DataOutputStream out, String s) throws IOException {
+
+		Integer index = stringIds.get(s);
+		if (index != null) {
+			writeVarInt(out, index);
+			return;
+		}
+
+		int next = stringIds.size();
+		stringIds.put(s, next);
+		writeVarInt(out, next);
+		out.writeUTF(s);
+
+	}
+
+	/**
+    * Read a String through the String table.
+    * Repeated Strings come back as the same String object.
+    * @param in Stream to read from.
+    * @return Returns String read.
+    * @throws IOException if the stream cannot be read or is not properly formatted.
+    */
+	public String readString(DataInputStream in) throws IOException {
+
+		int index = readVarInt(in);
+		if (index < strings.size()) return strings.get(index);
+		if (index != strings.size()) throw new IOException("Bad string reference in snapshot: " + index);
+
+		String s = in.readUTF();
+		strings.add(s);
+		return s;
+	}
+
+	/**
+    * Write an int as a zigzag varint, 1 byte for small values.
+    * @param out Stream to write to.
+    * @param value Integer to write.
+    * @throws IOException if the stream cannot be written.
+    */
+	public static void writeVarInt(DataOutputStream out, int value) throws IOException {
+
+		int v = (value << 1) ^ (value >> 31);
+		while ((v & ~0x7F) != 0) {
+			out.writeByte((v & 0x7F) | 0x80);
+			v = v >>> 7;
+		}
+		out.writeByte(v);
+
+	}
+
+	/**
+    * Read a zigzag varint written by writeVarInt.
+    * @param in Stream to read from.
+    * @return Returns integer read.
+    * @throws IOException if the stream cannot be read or is not properly formatted.
+    */
+	public static int readVarInt(DataInputStream in) throws IOException {
+
+		int v = 0;
+		for (int shift = 0; shift < 35; shift = shift + 7) {
+			int b = in.readUnsignedByte();
+			v = v | ((b & 0x7F) << shift);
+			if ((b & 0x80) == 0) return (v >>> 1) ^ -(v & 1);
+		}
+
+		throw new IOException("Bad varint in snapshot");
+	}
+
+}